@@ -0,0 +1,39 @@
+package com.safix.checkout.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards {@code /api/admin/**} with a shared token sent in the {@code X-Admin-Token} header.
+ * The admin API stays disabled while {@code admin.api-token} is blank.
+ */
+@Component
+public class AdminApiInterceptor implements HandlerInterceptor {
+
+    static final String TOKEN_HEADER = "X-Admin-Token";
+
+    @Value("${admin.api-token:}")
+    private String adminToken;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (adminToken == null || adminToken.isBlank()) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Admin API is disabled. Set admin.api-token to enable it.");
+            return false;
+        }
+
+        String provided = request.getHeader(TOKEN_HEADER);
+        if (provided == null || !MessageDigest.isEqual(
+                provided.getBytes(StandardCharsets.UTF_8), adminToken.getBytes(StandardCharsets.UTF_8))) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid admin token.");
+            return false;
+        }
+        return true;
+    }
+}
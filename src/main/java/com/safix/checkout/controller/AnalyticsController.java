@@ -0,0 +1,46 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.AnalyticsSummary;
+import com.safix.checkout.model.DayAnalytics;
+import com.safix.checkout.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+public class AnalyticsController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    /**
+     * Totals, per-course and per-sector counts and revenue, and enquiry conversion by topic.
+     */
+    @GetMapping("/api/admin/analytics")
+    public AnalyticsSummary summary() {
+        return analyticsService.getSummary();
+    }
+
+    /**
+     * Registrations, revenue and enquiries per day; defaults to the last 30 days.
+     */
+    @GetMapping("/api/admin/analytics/daily")
+    public ResponseEntity<List<DayAnalytics>> daily(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        try {
+            return ResponseEntity.ok(analyticsService.getDaily(start, end));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.CatalogStatus;
+import com.safix.checkout.service.SyllabusService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class CatalogAdminController {
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    @GetMapping("/api/admin/catalog")
+    public CatalogStatus status() {
+        return syllabusService.getStatus();
+    }
+
+    @PostMapping("/api/admin/catalog/reload")
+    public CatalogStatus reload() {
+        return syllabusService.reload("manual");
+    }
+}
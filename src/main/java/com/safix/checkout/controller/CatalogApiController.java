@@ -0,0 +1,272 @@
+package com.safix.checkout.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safix.checkout.model.Course;
+import com.safix.checkout.model.Sector;
+import com.safix.checkout.service.SyllabusCatalog;
+import com.safix.checkout.service.SyllabusService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Read-only JSON view of the course catalog for the mobile app and kiosks. Responses are written to the
+ * servlet stream as they are generated; every response carries an ETag tied to the catalog snapshot, so
+ * clients can poll with {@code If-None-Match} and get 304 until the catalog is reloaded.
+ */
+@RestController
+public class CatalogApiController {
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 200;
+
+    private static final Set<String> SECTOR_FIELDS = Set.of("id", "name", "courseIds");
+    private static final Set<String> COURSE_FIELDS = Set.of("id", "name", "sectorId", "sector", "fee", "syllabus");
+    private static final Set<String> DEFAULT_SECTOR_FIELDS = SECTOR_FIELDS;
+    private static final Set<String> DEFAULT_COURSE_FIELDS = Set.of("id", "name", "sectorId", "sector", "fee");
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping("/api/catalog/sectors")
+    public void sectors(@RequestParam(required = false) String fields,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer limit,
+                        ServletWebRequest webRequest,
+                        HttpServletResponse response) throws IOException {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        Set<String> selected = parseFields(fields, SECTOR_FIELDS, DEFAULT_SECTOR_FIELDS, response);
+        Page page = parsePage(catalog, cursor, limit, response);
+        if (selected == null || page == null || notModified(catalog, webRequest)) {
+            return;
+        }
+
+        List<Sector> sectors = catalog.getSectors();
+        try (JsonGenerator json = open(response)) {
+            writePage(json, catalog, page, sectors.size(), index -> writeSector(json, sectors.get(index), selected));
+        }
+    }
+
+    @GetMapping("/api/catalog/courses")
+    public void courses(@RequestParam(required = false) Integer sectorId,
+                        @RequestParam(required = false) String fields,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer limit,
+                        ServletWebRequest webRequest,
+                        HttpServletResponse response) throws IOException {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        Set<String> selected = parseFields(fields, COURSE_FIELDS, DEFAULT_COURSE_FIELDS, response);
+        Page page = parsePage(catalog, cursor, limit, response);
+        if (selected == null || page == null) {
+            return;
+        }
+
+        List<Integer> courseIds;
+        if (sectorId == null) {
+            courseIds = null;
+        } else {
+            courseIds = findSector(catalog, sectorId);
+            if (courseIds == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown sector " + sectorId + ".");
+                return;
+            }
+        }
+        if (notModified(catalog, webRequest)) {
+            return;
+        }
+
+        int total = courseIds == null ? catalog.getCourseCount() : courseIds.size();
+        try (JsonGenerator json = open(response)) {
+            writePage(json, catalog, page, total, index -> writeCourse(json, catalog,
+                    courseIds == null ? index : courseIds.get(index), selected));
+        }
+    }
+
+    @GetMapping("/api/catalog/courses/{courseId}")
+    public void course(@PathVariable int courseId,
+                       @RequestParam(required = false) String fields,
+                       ServletWebRequest webRequest,
+                       HttpServletResponse response) throws IOException {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        Set<String> selected = parseFields(fields, COURSE_FIELDS, COURSE_FIELDS, response);
+        if (selected == null) {
+            return;
+        }
+        if (!catalog.hasCourse(courseId)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown course " + courseId + ".");
+            return;
+        }
+        if (notModified(catalog, webRequest)) {
+            return;
+        }
+
+        try (JsonGenerator json = open(response)) {
+            writeCourse(json, catalog, courseId, selected);
+        }
+    }
+
+    private void writePage(JsonGenerator json, SyllabusCatalog catalog, Page page, int total, ItemWriter items)
+            throws IOException {
+        int end = Math.min(total, page.offset() + page.limit());
+        json.writeStartObject();
+        json.writeNumberField("version", catalog.getVersion());
+        json.writeNumberField("total", total);
+        json.writeArrayFieldStart("items");
+        for (int index = page.offset(); index < end; index++) {
+            items.write(index);
+        }
+        json.writeEndArray();
+        if (end < total) {
+            json.writeStringField("nextCursor", encodeCursor(catalog, end));
+        } else {
+            json.writeNullField("nextCursor");
+        }
+        json.writeEndObject();
+    }
+
+    private void writeSector(JsonGenerator json, Sector sector, Set<String> fields) throws IOException {
+        json.writeStartObject();
+        if (fields.contains("id")) {
+            json.writeNumberField("id", sector.id());
+        }
+        if (fields.contains("name")) {
+            json.writeStringField("name", sector.name());
+        }
+        if (fields.contains("courseIds")) {
+            json.writeArrayFieldStart("courseIds");
+            for (int courseId : sector.courseIds()) {
+                json.writeNumber(courseId);
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    private void writeCourse(JsonGenerator json, SyllabusCatalog catalog, int courseId, Set<String> fields)
+            throws IOException {
+        Course course = catalog.getCourse(courseId);
+        json.writeStartObject();
+        if (fields.contains("id")) {
+            json.writeNumberField("id", course.id());
+        }
+        if (fields.contains("name")) {
+            json.writeStringField("name", course.name());
+        }
+        if (fields.contains("sectorId")) {
+            json.writeNumberField("sectorId", course.sectorId());
+        }
+        if (fields.contains("sector")) {
+            json.writeStringField("sector", catalog.getSectorName(courseId));
+        }
+        if (fields.contains("fee")) {
+            json.writeStringField("fee", course.fee());
+        }
+        if (fields.contains("syllabus")) {
+            json.writeStringField("syllabus", catalog.getSyllabus(courseId));
+        }
+        json.writeEndObject();
+    }
+
+    private JsonGenerator open(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        return objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+    }
+
+    private boolean notModified(SyllabusCatalog catalog, ServletWebRequest webRequest) {
+        // Version numbers restart with the process, so the load time keeps ETags from two runs apart.
+        String etag = "\"" + catalog.getVersion() + "-" + Long.toHexString(catalog.getLoadedAt().toEpochMilli()) + "\"";
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        return webRequest.checkNotModified(etag);
+    }
+
+    private List<Integer> findSector(SyllabusCatalog catalog, int sectorId) {
+        for (Sector sector : catalog.getSectors()) {
+            if (sector.id() == sectorId) {
+                return sector.courseIds();
+            }
+        }
+        return null;
+    }
+
+    private Set<String> parseFields(String fields, Set<String> allowed, Set<String> defaults,
+                                    HttpServletResponse response) throws IOException {
+        if (fields == null || fields.isBlank()) {
+            return defaults;
+        }
+        Set<String> selected = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(name)) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        "Unknown field \"" + name + "\". Allowed: " + new TreeSet<>(allowed) + ".");
+                return null;
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    /**
+     * Cursors are opaque to clients: the catalog version and the offset of the next item. A cursor from
+     * an older catalog is rejected, because ids and ordering may have changed with the reload.
+     */
+    private Page parsePage(SyllabusCatalog catalog, String cursor, Integer limit, HttpServletResponse response)
+            throws IOException {
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(MAX_LIMIT, limit));
+        if (cursor == null || cursor.isBlank()) {
+            return new Page(0, pageSize);
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            long version = Long.parseLong(decoded.substring(0, separator));
+            int offset = Integer.parseInt(decoded.substring(separator + 1));
+            if (version != catalog.getVersion()) {
+                response.sendError(HttpServletResponse.SC_CONFLICT,
+                        "The catalog was reloaded; start again without a cursor.");
+                return null;
+            }
+            if (offset < 0) {
+                throw new IllegalArgumentException("negative offset");
+            }
+            return new Page(offset, pageSize);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor.");
+            return null;
+        }
+    }
+
+    private String encodeCursor(SyllabusCatalog catalog, int offset) {
+        String raw = catalog.getVersion() + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Page(int offset, int limit) {
+    }
+
+    @FunctionalInterface
+    private interface ItemWriter {
+        void write(int index) throws IOException;
+    }
+}
@@ -1,14 +1,26 @@
 package com.safix.checkout.controller;
 
+import com.safix.checkout.model.Course;
 import com.safix.checkout.model.Registration;
 import com.safix.checkout.service.RegistrationService;
+import com.safix.checkout.service.RenderedPageCache;
+import com.safix.checkout.service.SyllabusCatalog;
 import com.safix.checkout.service.SyllabusService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
 @Controller
 public class CheckoutController {
     
@@ -17,6 +29,9 @@ public class CheckoutController {
 
     @Autowired
     private SyllabusService syllabusService;
+
+    @Autowired
+    private RenderedPageCache pageCache;
     
     @GetMapping("/")
     public String index() {
@@ -24,22 +39,59 @@ public class CheckoutController {
     }
     
     @GetMapping("/checkout")
-    public ModelAndView checkout(
-            @RequestParam(required = false, defaultValue = "Elite Course") String course) {
+    public ResponseEntity<String> checkout(
+            @RequestParam(required = false, defaultValue = "Elite Course") String course,
+            @RequestParam(required = false) Integer courseId,
+            ServletWebRequest webRequest) {
         
-        ModelAndView mav = new ModelAndView("checkout-form");
-        mav.addObject("selectedCourse", course);
-        mav.addObject("price", syllabusService.getFeeByCourse(course));
-        return mav;
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        int id = courseIdFor(catalog, course, courseId);
+        String etag = pageCache.etag("checkout-form", pageKey(id, course), catalog.getVersion());
+        if (notModified(etag, webRequest)) {
+            return null;
+        }
+        String html = pageCache.get("checkout-form", id >= 0 ? String.valueOf(id) : null,
+                catalog.getVersion(), () -> {
+                    Map<String, Object> model = new HashMap<>();
+                    if (id >= 0) {
+                        model.put("selectedCourse", catalog.getCourse(id).name());
+                        model.put("courseId", id);
+                        model.put("price", catalog.getFee(id));
+                    } else {
+                        model.put("selectedCourse", course);
+                        model.put("price", catalog.getFeeByCourse(course));
+                    }
+                    return model;
+                }, webRequest.getRequest(), webRequest.getResponse());
+        return respond(html, etag);
     }
 
     @GetMapping("/syllabus")
-    public ModelAndView syllabus(@RequestParam String course) {
-        ModelAndView mav = new ModelAndView("syllabus");
-        mav.addObject("course", course);
-        mav.addObject("sector", syllabusService.getSectorByCourse(course));
-        mav.addObject("syllabusText", syllabusService.getSyllabusByCourse(course));
-        return mav;
+    public ResponseEntity<String> syllabus(@RequestParam(required = false) String course,
+                                           @RequestParam(required = false) Integer courseId,
+                                           ServletWebRequest webRequest) {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        int id = courseIdFor(catalog, course, courseId);
+        String etag = pageCache.etag("syllabus", pageKey(id, course), catalog.getVersion());
+        if (notModified(etag, webRequest)) {
+            return null;
+        }
+        String html = pageCache.get("syllabus", id >= 0 ? String.valueOf(id) : null,
+                catalog.getVersion(), () -> {
+                    Map<String, Object> model = new HashMap<>();
+                    if (id >= 0) {
+                        model.put("course", catalog.getCourse(id).name());
+                        model.put("courseId", id);
+                        model.put("sector", catalog.getSectorName(id));
+                        model.put("syllabusText", catalog.getSyllabus(id));
+                    } else {
+                        model.put("course", course);
+                        model.put("sector", catalog.getSectorByCourse(course));
+                        model.put("syllabusText", catalog.getSyllabusByCourse(course));
+                    }
+                    return model;
+                }, webRequest.getRequest(), webRequest.getResponse());
+        return respond(html, etag);
     }
     
     @PostMapping("/register")
@@ -48,11 +100,18 @@ public class CheckoutController {
             @RequestParam String whatsapp,
             @RequestParam String email,
             @RequestParam(required = false, defaultValue = "Elite Course") String course,
+            @RequestParam(required = false) Integer courseId,
             @RequestParam("screenshot") MultipartFile screenshot) {
         
         try {
-            Registration reg = registrationService.saveRegistration(name, whatsapp, email, screenshot);
-            reg.setSelectedCourse(course);
+            // Same rule as the checkout page, so the course recorded is the one whose price was shown
+            SyllabusCatalog catalog = syllabusService.getCatalog();
+            Course selected = catalog.getCourse(courseIdFor(catalog, course, courseId));
+            if (selected != null) {
+                course = selected.name();
+            }
+            Registration reg = registrationService.saveRegistration(name, whatsapp, email, course,
+                    selected != null ? selected.id() : null, screenshot);
             ModelAndView mav = new ModelAndView("success");
             mav.addObject("registration", reg);
             return mav;
@@ -62,4 +121,45 @@ public class CheckoutController {
             return mav;
         }
     }
+
+    /**
+     * Answers a matching {@code If-None-Match} with a 304, before the page is looked up or rendered.
+     */
+    private boolean notModified(String etag, ServletWebRequest webRequest) {
+        if (!webRequest.checkNotModified(etag)) {
+            return false;
+        }
+        HttpServletResponse response = webRequest.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, pageCache.getCacheControl().getHeaderValue());
+        }
+        return true;
+    }
+
+    private ResponseEntity<String> respond(String html, String etag) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .eTag(etag)
+                .cacheControl(pageCache.getCacheControl())
+                .body(html);
+    }
+
+    /**
+     * What a catalog page's content depends on besides the catalog version: the course id, or the course text
+     * when no course matches it exactly.
+     */
+    private static String pageKey(int id, String course) {
+        return id >= 0 ? "id:" + id : "course:" + course;
+    }
+
+    /**
+     * An explicit, valid {@code courseId} wins; otherwise the id of the course whose name matches exactly,
+     * so pages for fuzzy names keep using the string lookups. Returns {@code -1} when neither applies.
+     */
+    private int courseIdFor(SyllabusCatalog catalog, String course, Integer courseId) {
+        if (courseId != null && catalog.hasCourse(courseId)) {
+            return courseId;
+        }
+        return catalog.exactCourseId(course);
+    }
 }
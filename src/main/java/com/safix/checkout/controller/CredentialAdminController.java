@@ -0,0 +1,37 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.CredentialStats;
+import com.safix.checkout.service.CredentialIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class CredentialAdminController {
+
+    @Autowired
+    private CredentialIndex credentialIndex;
+
+    @GetMapping("/api/admin/credentials/stats")
+    public CredentialStats stats() {
+        return credentialIndex.getStats();
+    }
+
+    @PostMapping("/api/admin/credentials/refresh")
+    public CredentialStats refresh() {
+        credentialIndex.reloadAll();
+        return credentialIndex.getStats();
+    }
+
+    /**
+     * Hash for a new password, to paste into the credentials file or sheet.
+     */
+    @PostMapping("/api/admin/credentials/hash")
+    public Map<String, String> hash(@RequestParam String password) {
+        return Map.of("hash", credentialIndex.hash(password));
+    }
+}
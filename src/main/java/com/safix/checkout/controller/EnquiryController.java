@@ -2,28 +2,84 @@ package com.safix.checkout.controller;
 
 import com.safix.checkout.model.EnquiryRequest;
 import com.safix.checkout.model.EnquiryResult;
+import com.safix.checkout.model.Course;
+import com.safix.checkout.service.AnalyticsService;
 import com.safix.checkout.service.GoogleSheetsService;
+import com.safix.checkout.service.IdGenerator;
+import com.safix.checkout.service.RegistrationJournal;
+import com.safix.checkout.service.SyllabusCatalog;
+import com.safix.checkout.service.SyllabusService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 public class EnquiryController {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EnquiryController.class);
+
     @Autowired
     private GoogleSheetsService googleSheetsService;
 
+    @Autowired
+    private SyllabusService syllabusService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private RegistrationJournal journal;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
     @PostMapping("/api/enquiry")
-    public EnquiryResult submitEnquiry(@RequestBody EnquiryRequest request,
-                                       HttpServletRequest httpRequest) {
+    public CompletableFuture<EnquiryResult> submitEnquiry(@RequestBody EnquiryRequest request,
+                                                          HttpServletRequest httpRequest) {
         if (request == null) {
-            return EnquiryResult.fail("Invalid enquiry payload.");
+            return CompletableFuture.completedFuture(EnquiryResult.fail("Invalid enquiry payload."));
         }
+        request.setId(idGenerator.nextId());
         request.setIpAddress(httpRequest.getRemoteAddr());
         request.setUserAgent(httpRequest.getHeader("User-Agent"));
         request.setSource("website-enquiry");
+        resolveCourse(request);
+        recordForReports(request);
         return googleSheetsService.appendEnquiry(request);
     }
+
+    /**
+     * Journals the enquiry summary (without waiting for the fsync) so the dashboard can be rebuilt on restart.
+     */
+    private void recordForReports(EnquiryRequest request) {
+        try {
+            journal.appendEnquiry(request);
+        } catch (IOException e) {
+            LOG.warn("Could not journal enquiry {}", request.getId(), e);
+        }
+        analyticsService.recordEnquiry(request);
+    }
+
+    /**
+     * A valid {@code courseId}, else the exactly named course; a name that only resembles a course is kept as
+     * text with no id, as on the checkout page.
+     */
+    private void resolveCourse(EnquiryRequest request) {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        Course course = request.getCourseId() == null ? null : catalog.getCourse(request.getCourseId());
+        if (course == null) {
+            course = catalog.getCourse(catalog.exactCourseId(request.getCourse()));
+        }
+        request.setCourseId(course == null ? null : course.id());
+        if (course != null) {
+            request.setCourse(course.name());
+        }
+    }
 }
@@ -1,10 +1,13 @@
 package com.safix.checkout.controller;
 
+import com.safix.checkout.model.LoginCheck;
 import com.safix.checkout.model.LoginRequest;
-import com.safix.checkout.model.LoginResult;
+import com.safix.checkout.service.CredentialIndex;
 import com.safix.checkout.service.GoogleSheetsService;
+import com.safix.checkout.service.IdGenerator;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -17,6 +20,12 @@ public class LoginController {
     @Autowired
     private GoogleSheetsService googleSheetsService;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private CredentialIndex credentialIndex;
+
     @GetMapping("/login")
     public ModelAndView login(@RequestParam(required = false, defaultValue = "user") String role) {
         String normalized = normalizeRole(role);
@@ -33,27 +42,54 @@ public class LoginController {
                                     @RequestParam String password,
                                     HttpServletRequest request) {
         String normalized = normalizeRole(role);
+        if (credentialIndex.isEmpty()) {
+            return loginView(normalized, "Login is not configured yet. Please contact the team.");
+        }
+        // Checked against the in-memory index only; nothing here waits on Google Sheets.
+        LoginCheck check = credentialIndex.verify(identifier, normalized, password, request.getRemoteAddr());
+        boolean verified = check == LoginCheck.VERIFIED;
+
         LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setId(idGenerator.nextId());
         loginRequest.setRole(normalized);
         loginRequest.setIdentifier(identifier);
-        loginRequest.setPassword(password);
         loginRequest.setIpAddress(request.getRemoteAddr());
         loginRequest.setUserAgent(request.getHeader("User-Agent"));
         loginRequest.setSource("website-login");
+        loginRequest.setOutcome(switch (check) {
+            case VERIFIED -> "success";
+            case REJECTED -> "failed";
+            case THROTTLED -> "throttled";
+            case BUSY -> "busy";
+        });
+        // Audit row goes out in the background; the response does not wait for it.
+        googleSheetsService.appendLogin(loginRequest);
 
-        LoginResult result = googleSheetsService.appendLogin(loginRequest);
-        if (result.success()) {
-            ModelAndView mav = new ModelAndView("login-success");
-            mav.addObject("roleLabel", roleLabel(normalized));
-            mav.addObject("identifier", identifier);
+        if (check == LoginCheck.THROTTLED) {
+            ModelAndView mav = loginView(normalized, "Too many login attempts. Please wait a minute, then try again.");
+            mav.setStatus(HttpStatus.TOO_MANY_REQUESTS);
             return mav;
         }
+        if (check == LoginCheck.BUSY) {
+            ModelAndView mav = loginView(normalized, "Login is busy right now. Please try again in a moment.");
+            mav.setStatus(HttpStatus.SERVICE_UNAVAILABLE);
+            return mav;
+        }
+        if (!verified) {
+            return loginView(normalized, "Invalid credentials. Check your details and role, then try again.");
+        }
+        ModelAndView mav = new ModelAndView("login-success");
+        mav.addObject("roleLabel", roleLabel(normalized));
+        mav.addObject("identifier", identifier);
+        return mav;
+    }
 
+    private ModelAndView loginView(String normalized, String error) {
         ModelAndView mav = new ModelAndView("login");
         mav.addObject("role", normalized);
         mav.addObject("roleLabel", roleLabel(normalized));
         mav.addObject("roleHint", roleHint(normalized));
-        mav.addObject("error", result.message());
+        mav.addObject("error", error);
         return mav;
     }
 
@@ -0,0 +1,35 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.FakeSmtpStats;
+import com.safix.checkout.model.MailDispatcherStats;
+import com.safix.checkout.service.FakeSmtpServer;
+import com.safix.checkout.service.MailDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class MailAdminController {
+
+    @Autowired
+    private MailDispatcher mailDispatcher;
+
+    @Autowired
+    private FakeSmtpServer fakeSmtpServer;
+
+    /**
+     * Queue depth, messages per second, connection reuse ratio and send latency of the SMTP dispatcher.
+     */
+    @GetMapping("/api/admin/mail/stats")
+    public MailDispatcherStats stats() {
+        return mailDispatcher.getStats();
+    }
+
+    /**
+     * Connections, logins and messages seen by the local fake SMTP server (mail.fake.enabled).
+     */
+    @GetMapping("/api/admin/mail/fake")
+    public FakeSmtpStats fake() {
+        return fakeSmtpServer.getStats();
+    }
+}
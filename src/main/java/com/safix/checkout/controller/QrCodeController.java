@@ -1,50 +1,62 @@
 package com.safix.checkout.controller;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.safix.checkout.model.QrImage;
+import com.safix.checkout.service.QrCodeService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.ByteArrayOutputStream;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class QrCodeController {
-    
-    @Value("${upi.merchant.id}")
-    private String upiId;
-    
-    @Value("${upi.merchant.name}")
-    private String merchantName;
-    
-    @Value("${upi.course.amount}")
-    private String amount;
-    
-    @GetMapping(value = "/api/qr-code", produces = MediaType.IMAGE_PNG_VALUE)
-    public byte[] generateQrCode(
+
+    private static final MediaType SVG = MediaType.parseMediaType("image/svg+xml");
+
+    @Value("${qr.cache.max-age-seconds:86400}")
+    private long maxAgeSeconds;
+
+    @Autowired
+    private QrCodeService qrCodeService;
+
+    /**
+     * Served from the QR cache. The ETag lets browsers revalidate with a 304 once max-age runs out.
+     * {@code format} is png or svg, {@code size} 64-1024 pixels, {@code ecc} one of L, M, Q, H.
+     */
+    @GetMapping(value = "/api/qr-code", produces = {MediaType.IMAGE_PNG_VALUE, "image/svg+xml"})
+    public ResponseEntity<byte[]> generateQrCode(
             @RequestParam(required = false) String course,
-            @RequestParam(required = false) String amount) throws Exception {
-        String resolvedCourse = (course == null || course.isBlank()) ? "Elite Course" : course;
-        String resolvedAmount = (amount == null || amount.isBlank()) ? this.amount : amount;
-
-        String upiUrl = String.format("upi://pay?pa=%s&pn=%s&am=%s&cu=INR&tn=%s",
-                encode(upiId), encode(merchantName), encode(resolvedAmount), encode(resolvedCourse + " Payment"));
-        
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(upiUrl, BarcodeFormat.QR_CODE, 300, 300);
-        
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", baos);
-        return baos.toByteArray();
+            @RequestParam(required = false) String amount,
+            @RequestParam(required = false) Integer courseId,
+            @RequestParam(required = false, defaultValue = QrCodeService.PNG) String format,
+            @RequestParam(required = false, defaultValue = "" + QrCodeService.DEFAULT_SIZE) int size,
+            @RequestParam(required = false, defaultValue = "L") String ecc) {
+        String normalizedFormat = format.trim().toLowerCase(Locale.ROOT);
+        ErrorCorrectionLevel level = errorCorrection(ecc);
+        if (!(normalizedFormat.equals(QrCodeService.PNG) || normalizedFormat.equals(QrCodeService.SVG))
+                || size < QrCodeService.MIN_SIZE || size > QrCodeService.MAX_SIZE || level == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        QrImage image = qrCodeService.qrFor(courseId, course, amount, normalizedFormat, size, level);
+        return ResponseEntity.ok()
+                .contentType(normalizedFormat.equals(QrCodeService.SVG) ? SVG : MediaType.IMAGE_PNG)
+                .eTag(image.etag())
+                .cacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                .body(image.content());
     }
 
-    private String encode(String value) {
-        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    private static ErrorCorrectionLevel errorCorrection(String ecc) {
+        try {
+            return ErrorCorrectionLevel.valueOf(ecc.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
     }
 }
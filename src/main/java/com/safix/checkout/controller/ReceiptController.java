@@ -0,0 +1,46 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.ReceiptPipelineStats;
+import com.safix.checkout.model.ReceiptStatus;
+import com.safix.checkout.service.ReceiptPipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ReceiptController {
+
+    @Autowired
+    private ReceiptPipeline receiptPipeline;
+
+    /**
+     * Receipt progress for a registration, polled by the success page. Finished receipts are answered from the
+     * journal; 404 when this server has no record of the registration.
+     * The SMTP error text is left out here; it is only shown on the admin endpoint.
+     */
+    @GetMapping("/api/registration/{id}/status")
+    public ResponseEntity<ReceiptStatus> status(@PathVariable long id) {
+        ReceiptStatus status = receiptPipeline.getStatus(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new ReceiptStatus(status.registrationId(), status.state(), status.failures(), null,
+                        status.updatedAt()));
+    }
+
+    @GetMapping("/api/admin/receipts/{id}")
+    public ResponseEntity<ReceiptStatus> adminStatus(@PathVariable long id) {
+        ReceiptStatus status = receiptPipeline.getStatus(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/api/admin/receipts/stats")
+    public ReceiptPipelineStats stats() {
+        return receiptPipeline.getStats();
+    }
+}
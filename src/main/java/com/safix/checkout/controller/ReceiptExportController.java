@@ -0,0 +1,132 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.ReceiptExport;
+import com.safix.checkout.service.ReceiptExportService;
+import com.safix.checkout.service.SyllabusService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@RestController
+public class ReceiptExportController {
+
+    private static final String ZIP = "application/zip";
+
+    @Autowired
+    private ReceiptExportService exportService;
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    /**
+     * Regenerates the receipts of registrations in a date range and/or course and streams them as a ZIP. The
+     * export id is sent in {@code X-Export-Id}, for following or cancelling it while the download runs.
+     */
+    @GetMapping("/api/admin/receipts/export")
+    public void export(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestParam(required = false) Integer courseId,
+                       @RequestParam(required = false) String course,
+                       HttpServletResponse response) throws IOException {
+        Integer filterCourseId = courseId(courseId, course);
+        if (filterCourseId != null && filterCourseId < 0) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown course \"" + course + "\".");
+            return;
+        }
+        String id;
+        try {
+            id = exportService.beginStreamExport(from, to, filterCourseId);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        } catch (IllegalStateException e) {
+            response.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
+            return;
+        }
+
+        String filename = "receipts-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".zip";
+        response.setContentType(ZIP);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setHeader("X-Export-Id", id);
+        exportService.streamExport(id, response.getOutputStream());
+    }
+
+    /**
+     * Starts the same export into a file on the server; poll it and download it once {@code COMPLETED}.
+     */
+    @PostMapping("/api/admin/receipts/exports")
+    public ResponseEntity<?> start(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                   @RequestParam(required = false) Integer courseId,
+                                   @RequestParam(required = false) String course) throws IOException {
+        Integer filterCourseId = courseId(courseId, course);
+        if (filterCourseId != null && filterCourseId < 0) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown course \"" + course + "\".");
+        }
+        try {
+            return ResponseEntity.accepted().body(exportService.startFileExport(from, to, filterCourseId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/api/admin/receipts/exports")
+    public List<ReceiptExport> list() {
+        return exportService.getExports();
+    }
+
+    @GetMapping("/api/admin/receipts/exports/{id}")
+    public ResponseEntity<ReceiptExport> progress(@PathVariable String id) {
+        ReceiptExport export = exportService.getExport(id);
+        return export != null ? ResponseEntity.ok(export) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/api/admin/receipts/exports/{id}/cancel")
+    public ResponseEntity<ReceiptExport> cancel(@PathVariable String id) {
+        if (!exportService.cancel(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(exportService.getExport(id));
+    }
+
+    @GetMapping("/api/admin/receipts/exports/{id}/download")
+    public void download(@PathVariable String id, HttpServletResponse response) throws IOException {
+        Path file = exportService.getFile(id);
+        if (file == null || !Files.exists(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "No completed export " + id + ".");
+            return;
+        }
+        response.setContentType(ZIP);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"");
+        response.setContentLengthLong(Files.size(file));
+        Files.copy(file, response.getOutputStream());
+    }
+
+    @DeleteMapping("/api/admin/receipts/exports/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id) {
+        return exportService.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * {@code courseId}, else the id of the exactly named course (-1 when there is none), else {@code null}.
+     */
+    private Integer courseId(Integer courseId, String course) {
+        if (courseId == null && course != null && !course.isBlank()) {
+            return syllabusService.getCatalog().exactCourseId(course);
+        }
+        return courseId;
+    }
+}
@@ -0,0 +1,53 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.service.RegistrationService;
+import com.safix.checkout.service.SyllabusService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+@RestController
+public class RegistrationAdminController {
+
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    /**
+     * Downloads registrations as registrations.xlsx, optionally limited to a registration date range and a course
+     * (by {@code courseId} or exact course name).
+     */
+    @GetMapping("/api/admin/registrations/export")
+    public void export(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestParam(required = false) Integer courseId,
+                       @RequestParam(required = false) String course,
+                       HttpServletResponse response) throws IOException {
+        Integer filterCourseId = courseId;
+        if (filterCourseId == null && course != null && !course.isBlank()) {
+            int resolved = syllabusService.getCatalog().exactCourseId(course);
+            if (resolved < 0) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown course \"" + course + "\".");
+                return;
+            }
+            filterCourseId = resolved;
+        }
+
+        String filename = "registrations-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".xlsx";
+        response.setContentType(XLSX);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        registrationService.exportToExcel(response.getOutputStream(), from, to, filterCourseId);
+    }
+}
@@ -0,0 +1,59 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.PipelineStats;
+import com.safix.checkout.service.ScreenshotPipeline;
+import com.safix.checkout.service.ScreenshotStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+public class ScreenshotAdminController {
+
+    @Autowired
+    private ScreenshotStore screenshotStore;
+
+    @Autowired
+    private ScreenshotPipeline screenshotPipeline;
+
+    @GetMapping("/api/admin/screenshots/pipeline")
+    public PipelineStats pipeline() {
+        return screenshotPipeline.getStats();
+    }
+
+    /**
+     * Review thumbnail for a screenshot reference; 404 until the pipeline has produced it.
+     */
+    @GetMapping("/api/admin/screenshots/{reference}/thumbnail")
+    public ResponseEntity<Resource> thumbnail(@PathVariable String reference) {
+        return variant(reference, ScreenshotPipeline.THUMBNAIL);
+    }
+
+    @GetMapping("/api/admin/screenshots/{reference}/archive")
+    public ResponseEntity<Resource> archive(@PathVariable String reference) {
+        return variant(reference, ScreenshotPipeline.ARCHIVE);
+    }
+
+    private ResponseEntity<Resource> variant(String reference, String variant) {
+        Path file;
+        try {
+            file = screenshotStore.resolveVariant(reference, variant);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,27 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.SearchResult;
+import com.safix.checkout.model.SearchStats;
+import com.safix.checkout.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping("/api/search")
+    public SearchResult search(@RequestParam(required = false, defaultValue = "") String q,
+                               @RequestParam(required = false, defaultValue = "10") int limit) {
+        return searchService.search(q, limit);
+    }
+
+    @GetMapping("/api/admin/search/stats")
+    public SearchStats stats() {
+        return searchService.getStats();
+    }
+}
@@ -0,0 +1,35 @@
+package com.safix.checkout.controller;
+
+import com.safix.checkout.model.FakeSheetsStats;
+import com.safix.checkout.model.SheetsStats;
+import com.safix.checkout.service.FakeSheetsServer;
+import com.safix.checkout.service.GoogleSheetsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class SheetsAdminController {
+
+    @Autowired
+    private GoogleSheetsService googleSheetsService;
+
+    @Autowired
+    private FakeSheetsServer fakeSheetsServer;
+
+    /**
+     * Outbox backlog and age of the oldest undelivered row (alert on these), plus batch counters.
+     */
+    @GetMapping("/api/admin/sheets/stats")
+    public SheetsStats stats() {
+        return googleSheetsService.getStats();
+    }
+
+    /**
+     * Requests, injected errors and rows per sheet seen by the local fake Sheets API (google.sheets.fake.enabled).
+     */
+    @GetMapping("/api/admin/sheets/fake")
+    public FakeSheetsStats fake() {
+        return fakeSheetsServer.getStats();
+    }
+}
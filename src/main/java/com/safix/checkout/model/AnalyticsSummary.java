@@ -0,0 +1,15 @@
+package com.safix.checkout.model;
+
+import java.util.List;
+
+/**
+ * Revenue is in rupees, at each course's current listed fee.
+ */
+public record AnalyticsSummary(long registrations,
+                               long revenue,
+                               long enquiries,
+                               long converted,
+                               List<CourseAnalytics> courses,
+                               List<SectorAnalytics> sectors,
+                               List<TopicAnalytics> topics) {
+}
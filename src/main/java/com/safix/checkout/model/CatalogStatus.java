@@ -0,0 +1,16 @@
+package com.safix.checkout.model;
+
+import java.util.List;
+
+public record CatalogStatus(long version,
+                            String loadedAt,
+                            long loadMillis,
+                            String source,
+                            int sectors,
+                            int courses,
+                            String trigger,
+                            List<String> changedFiles,
+                            boolean watching,
+                            String lastReloadError,
+                            String lastReloadErrorAt) {
+}
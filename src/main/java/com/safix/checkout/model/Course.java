@@ -0,0 +1,9 @@
+package com.safix.checkout.model;
+
+/**
+ * A course as listed in {@code website course.txt}. Ids are dense (0..n-1) and follow the order of that
+ * file, so inserting or removing a course renumbers the ones after it; anything stored refers to a course by
+ * its key instead (see {@code SyllabusCatalog.getCourseKey}).
+ */
+public record Course(int id, String name, int sectorId, String fee) {
+}
@@ -0,0 +1,9 @@
+package com.safix.checkout.model;
+
+public record CourseAnalytics(int courseId,
+                              String course,
+                              String sector,
+                              long registrations,
+                              long revenue,
+                              long enquiries) {
+}
@@ -0,0 +1,12 @@
+package com.safix.checkout.model;
+
+import java.time.Instant;
+
+public record CredentialStats(int entries,
+                              int sheetRowsLoaded,
+                              Instant lastRefresh,
+                              String lastError,
+                              int verifying,
+                              long throttled,
+                              long busy) {
+}
@@ -0,0 +1,9 @@
+package com.safix.checkout.model;
+
+import java.time.LocalDate;
+
+public record DayAnalytics(LocalDate day,
+                           long registrations,
+                           long revenue,
+                           long enquiries) {
+}
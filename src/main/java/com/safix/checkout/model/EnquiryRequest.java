@@ -1,5 +1,8 @@
 package com.safix.checkout.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 import java.time.LocalDateTime;
 
 public class EnquiryRequest {
@@ -10,6 +13,8 @@ public class EnquiryRequest {
     private String phone;
     private String email;
     private String topic;
+    private String course;
+    private Integer courseId;
     private String message;
     private boolean whatsappConsent;
     private String ipAddress;
@@ -19,9 +24,9 @@ public class EnquiryRequest {
 
     public EnquiryRequest() {
         this.submittedAt = LocalDateTime.now();
-        this.id = System.currentTimeMillis();
     }
 
+    @JsonSerialize(using = ToStringSerializer.class)
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -43,6 +48,12 @@ public class EnquiryRequest {
     public String getTopic() { return topic; }
     public void setTopic(String topic) { this.topic = topic; }
 
+    public String getCourse() { return course; }
+    public void setCourse(String course) { this.course = course; }
+
+    public Integer getCourseId() { return courseId; }
+    public void setCourseId(Integer courseId) { this.courseId = courseId; }
+
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
 
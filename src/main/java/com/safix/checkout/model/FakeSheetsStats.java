@@ -0,0 +1,12 @@
+package com.safix.checkout.model;
+
+import java.util.Map;
+
+public record FakeSheetsStats(boolean enabled,
+                              long requests,
+                              long rowsAppended,
+                              long injected429,
+                              long injected5xx,
+                              long quotaExceeded,
+                              Map<String, Integer> rowsBySheet) {
+}
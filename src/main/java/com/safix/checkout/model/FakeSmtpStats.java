@@ -0,0 +1,10 @@
+package com.safix.checkout.model;
+
+public record FakeSmtpStats(boolean enabled,
+                            long connections,
+                            long authentications,
+                            long messages,
+                            long bytes,
+                            long dropped,
+                            long refusedOverLimit) {
+}
@@ -0,0 +1,4 @@
+package com.safix.checkout.model;
+
+public record LatencyStats(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+}
@@ -1,22 +1,25 @@
 package com.safix.checkout.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 import java.time.LocalDateTime;
 
 public class LoginRequest {
     private Long id;
     private String role;
     private String identifier;
-    private String password;
     private String ipAddress;
     private String userAgent;
     private String source;
+    private String outcome;
     private LocalDateTime submittedAt;
 
     public LoginRequest() {
         this.submittedAt = LocalDateTime.now();
-        this.id = System.currentTimeMillis();
     }
 
+    @JsonSerialize(using = ToStringSerializer.class)
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -26,9 +29,6 @@ public class LoginRequest {
     public String getIdentifier() { return identifier; }
     public void setIdentifier(String identifier) { this.identifier = identifier; }
 
-    public String getPassword() { return password; }
-    public void setPassword(String password) { this.password = password; }
-
     public String getIpAddress() { return ipAddress; }
     public void setIpAddress(String ipAddress) { this.ipAddress = ipAddress; }
 
@@ -38,6 +38,9 @@ public class LoginRequest {
     public String getSource() { return source; }
     public void setSource(String source) { this.source = source; }
 
+    public String getOutcome() { return outcome; }
+    public void setOutcome(String outcome) { this.outcome = outcome; }
+
     public LocalDateTime getSubmittedAt() { return submittedAt; }
     public void setSubmittedAt(LocalDateTime submittedAt) { this.submittedAt = submittedAt; }
 }
@@ -0,0 +1,20 @@
+package com.safix.checkout.model;
+
+/**
+ * {@code connectionReuseRatio} is the share of sent messages that went over an already open SMTP connection;
+ * {@code messagesPerSecond} is averaged over the last minute. {@code latency} runs from queueing to the
+ * server accepting the message.
+ */
+public record MailDispatcherStats(int queued,
+                                  int openConnections,
+                                  long sent,
+                                  long failed,
+                                  long connectionsOpened,
+                                  long connectionFailures,
+                                  double connectionReuseRatio,
+                                  long batches,
+                                  double averageBatchSize,
+                                  double messagesPerSecond,
+                                  long rateLimitedMillis,
+                                  LatencyStats latency) {
+}
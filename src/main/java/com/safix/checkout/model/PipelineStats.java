@@ -0,0 +1,11 @@
+package com.safix.checkout.model;
+
+public record PipelineStats(int queued,
+                            int queueCapacity,
+                            int active,
+                            long completed,
+                            long failed,
+                            long rejected,
+                            long skipped,
+                            LatencyStats processing) {
+}
@@ -0,0 +1,7 @@
+package com.safix.checkout.model;
+
+/**
+ * An encoded QR code and its strong ETag (derived from the bytes).
+ */
+public record QrImage(byte[] content, String etag) {
+}
@@ -0,0 +1,26 @@
+package com.safix.checkout.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk receipt export. {@code failed} receipts could not be rendered and are listed in
+ * {@code failures.txt} inside the ZIP. {@code toFile} exports can be downloaded once {@code COMPLETED}; the others
+ * were streamed straight to the requesting client.
+ */
+public record ReceiptExport(String id,
+                            ReceiptExportState state,
+                            boolean toFile,
+                            LocalDate from,
+                            LocalDate to,
+                            Integer courseId,
+                            int total,
+                            int rendered,
+                            int failed,
+                            long pdfBytes,
+                            long zipBytes,
+                            double receiptsPerSecond,
+                            LocalDateTime startedAt,
+                            LocalDateTime finishedAt,
+                            String error) {
+}
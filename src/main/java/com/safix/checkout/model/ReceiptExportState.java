@@ -0,0 +1,8 @@
+package com.safix.checkout.model;
+
+public enum ReceiptExportState {
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.safix.checkout.model;
+
+public record ReceiptPipelineStats(int pdfQueued,
+                                   int emailQueued,
+                                   int retriesScheduled,
+                                   long sent,
+                                   long failed,
+                                   long retried,
+                                   LatencyStats pdf,
+                                   LatencyStats email) {
+}
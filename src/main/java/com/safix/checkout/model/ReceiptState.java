@@ -0,0 +1,10 @@
+package com.safix.checkout.model;
+
+public enum ReceiptState {
+    QUEUED,
+    RENDERING_PDF,
+    SENDING_EMAIL,
+    RETRY_SCHEDULED,
+    SENT,
+    FAILED
+}
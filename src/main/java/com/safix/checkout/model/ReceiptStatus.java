@@ -0,0 +1,17 @@
+package com.safix.checkout.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.time.LocalDateTime;
+
+public record ReceiptStatus(@JsonSerialize(using = ToStringSerializer.class) long registrationId,
+                            ReceiptState state,
+                            int failures,
+                            String lastError,
+                            LocalDateTime updatedAt) {
+
+    public boolean isDone() {
+        return state == ReceiptState.SENT || state == ReceiptState.FAILED;
+    }
+}
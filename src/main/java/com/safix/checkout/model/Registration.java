@@ -1,5 +1,8 @@
 package com.safix.checkout.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 import java.time.LocalDateTime;
 
 public class Registration {
@@ -10,15 +13,16 @@ public class Registration {
     private String email;
     private String paymentScreenshot;
     private String selectedCourse;
+    private Integer courseId;
     private LocalDateTime registeredAt;
     private String receiptSent;
     
     public Registration() {
         this.registeredAt = LocalDateTime.now();
-        this.id = System.currentTimeMillis();
     }
     
     // Getters and Setters
+    @JsonSerialize(using = ToStringSerializer.class)
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
@@ -37,6 +41,9 @@ public class Registration {
     public String getSelectedCourse() { return selectedCourse; }
     public void setSelectedCourse(String course) { this.selectedCourse = course; }
     
+    public Integer getCourseId() { return courseId; }
+    public void setCourseId(Integer courseId) { this.courseId = courseId; }
+    
     public LocalDateTime getRegisteredAt() { return registeredAt; }
     public void setRegisteredAt(LocalDateTime time) { this.registeredAt = time; }
     
@@ -0,0 +1,4 @@
+package com.safix.checkout.model;
+
+public record SearchHit(int courseId, String name, String sector, double score, String snippet) {
+}
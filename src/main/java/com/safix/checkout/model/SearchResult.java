@@ -0,0 +1,6 @@
+package com.safix.checkout.model;
+
+import java.util.List;
+
+public record SearchResult(String query, long version, List<SearchHit> suggestions, List<SearchHit> results) {
+}
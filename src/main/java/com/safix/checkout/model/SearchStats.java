@@ -0,0 +1,10 @@
+package com.safix.checkout.model;
+
+public record SearchStats(long version,
+                          int documents,
+                          int terms,
+                          int nameTerms,
+                          long postings,
+                          long buildMillis,
+                          LatencyStats latency) {
+}
@@ -0,0 +1,9 @@
+package com.safix.checkout.model;
+
+import java.util.List;
+
+/**
+ * A sector from {@code website course.txt}; the id is the sector number used in that file.
+ */
+public record Sector(int id, String name, List<Integer> courseIds) {
+}
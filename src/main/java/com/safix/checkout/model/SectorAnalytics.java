@@ -0,0 +1,8 @@
+package com.safix.checkout.model;
+
+public record SectorAnalytics(int sectorId,
+                              String sector,
+                              long registrations,
+                              long revenue,
+                              long enquiries) {
+}
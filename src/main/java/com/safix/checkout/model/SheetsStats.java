@@ -0,0 +1,19 @@
+package com.safix.checkout.model;
+
+public record SheetsStats(boolean configured,
+                          long outboxBacklog,
+                          long oldestUndeliveredAgeMillis,
+                          long delivered,
+                          long duplicatesSkipped,
+                          long deadLettered,
+                          long rowsSent,
+                          long batchesSent,
+                          long batchesFailed,
+                          long throttled,
+                          String breakerState,
+                          long breakerOpened,
+                          long breakerRejected,
+                          long breakerRemainingOpenMillis,
+                          long retries,
+                          long retriesDenied) {
+}
@@ -0,0 +1,10 @@
+package com.safix.checkout.model;
+
+/**
+ * Enquiries for a topic, and how many of those enquirers later registered (matched by email or phone).
+ */
+public record TopicAnalytics(String topic,
+                             long enquiries,
+                             long converted,
+                             double conversionRate) {
+}
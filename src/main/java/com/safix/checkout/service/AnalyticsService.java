@@ -0,0 +1,232 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.*;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for the admin dashboard: registrations, revenue and enquiries per course, sector and day, and
+ * enquiry-to-registration conversion per enquiry topic. Counters are {@link LongAdder}s, so concurrent
+ * registrations do not contend. Course counters are keyed by course key rather than id, so a catalog edit that
+ * renumbers courses does not move totals between them; sectors are keyed by their number in the course file and
+ * days by epoch day. Reports read the counters directly and never scan history. The totals are rebuilt from the
+ * {@link RegistrationJournal} at startup and then updated as each registration or enquiry arrives.
+ */
+@Service
+public class AnalyticsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnalyticsService.class);
+
+    private static final String NO_TOPIC = "(none)";
+    private static final String OTHER_TOPICS = "(other)";
+    private static final int MAX_TOPICS = 200;
+    private static final int MAX_DAYS = 366;
+
+    @Autowired
+    private RegistrationJournal journal;
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    private final Map<String, Counters> byCourse = new ConcurrentHashMap<>();
+    private final Map<Integer, Counters> bySector = new ConcurrentHashMap<>();
+    private final Counters unassigned = new Counters();
+    private final Counters totals = new Counters();
+    private final Map<Long, Counters> byDay = new ConcurrentHashMap<>();
+    private final Map<String, TopicCounters> byTopic = new ConcurrentHashMap<>();
+    // Email and phone of each enquirer, mapped to the first enquiry they made
+    private final Map<String, Enquirer> enquirers = new ConcurrentHashMap<>();
+    private final LongAdder converted = new LongAdder();
+
+    @PostConstruct
+    public void rebuild() {
+        try {
+            journal.forEachEvent(this::recordRegistration, this::recordEnquiry);
+        } catch (Exception ex) {
+            LOG.error("Could not rebuild analytics from the journal", ex);
+        }
+    }
+
+    public void recordRegistration(Registration reg) {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        Course course = course(catalog, reg.getCourseId());
+        long fee = course != null ? parseFee(course.fee()) : 0;
+        List<Counters> targets = new ArrayList<>(4);
+        targets.add(totals);
+        targets.add(course != null ? counters(byCourse, catalog.getCourseKey(course.id())) : unassigned);
+        if (course != null) {
+            targets.add(counters(bySector, course.sectorId()));
+        }
+        if (reg.getRegisteredAt() != null) {
+            targets.add(byDay.computeIfAbsent(reg.getRegisteredAt().toLocalDate().toEpochDay(), day -> new Counters()));
+        }
+        for (Counters counters : targets) {
+            counters.registrations.increment();
+            counters.revenue.add(fee);
+        }
+        for (String contact : contacts(reg.getEmail(), reg.getWhatsapp())) {
+            Enquirer enquirer = enquirers.get(contact);
+            if (enquirer != null) {
+                if (enquirer.converted().compareAndSet(false, true)) {
+                    enquirer.topic().converted.increment();
+                    converted.increment();
+                }
+                break;
+            }
+        }
+    }
+
+    public void recordEnquiry(EnquiryRequest request) {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        Course course = course(catalog, request.getCourseId());
+        List<Counters> targets = new ArrayList<>(4);
+        targets.add(totals);
+        targets.add(course != null ? counters(byCourse, catalog.getCourseKey(course.id())) : unassigned);
+        if (course != null) {
+            targets.add(counters(bySector, course.sectorId()));
+        }
+        if (request.getSubmittedAt() != null) {
+            targets.add(byDay.computeIfAbsent(request.getSubmittedAt().toLocalDate().toEpochDay(), day -> new Counters()));
+        }
+        for (Counters counters : targets) {
+            counters.enquiries.increment();
+        }
+        TopicCounters topic = topicCounters(request.getTopic());
+        topic.enquiries.increment();
+        Enquirer enquirer = new Enquirer(topic, new AtomicBoolean());
+        for (String contact : contacts(request.getEmail(), request.getPhone())) {
+            enquirers.putIfAbsent(contact, enquirer);
+        }
+    }
+
+    public AnalyticsSummary getSummary() {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        List<CourseAnalytics> courses = new ArrayList<>();
+        Set<String> listed = new HashSet<>();
+        for (Course course : catalog.getCourses()) {
+            String key = catalog.getCourseKey(course.id());
+            listed.add(key);
+            Counters counters = byCourse.getOrDefault(key, Counters.EMPTY);
+            courses.add(new CourseAnalytics(course.id(), course.name(), catalog.getSectorName(course.id()),
+                    counters.registrations.sum(), counters.revenue.sum(), counters.enquiries.sum()));
+        }
+        byCourse.forEach((key, counters) -> {
+            if (!listed.contains(key) && !counters.isEmpty()) {
+                // A course removed from the catalog since; all that is left of it is its key
+                courses.add(new CourseAnalytics(-1, key, null,
+                        counters.registrations.sum(), counters.revenue.sum(), counters.enquiries.sum()));
+            }
+        });
+        if (!unassigned.isEmpty()) {
+            courses.add(new CourseAnalytics(-1, null, null,
+                    unassigned.registrations.sum(), unassigned.revenue.sum(), unassigned.enquiries.sum()));
+        }
+
+        List<SectorAnalytics> sectors = new ArrayList<>();
+        for (Sector sector : catalog.getSectors()) {
+            Counters counters = bySector.getOrDefault(sector.id(), Counters.EMPTY);
+            sectors.add(new SectorAnalytics(sector.id(), sector.name(),
+                    counters.registrations.sum(), counters.revenue.sum(), counters.enquiries.sum()));
+        }
+
+        List<TopicAnalytics> topics = new ArrayList<>();
+        byTopic.forEach((name, counters) -> {
+            long enquiries = counters.enquiries.sum();
+            long topicConverted = counters.converted.sum();
+            topics.add(new TopicAnalytics(name, enquiries, topicConverted,
+                    enquiries == 0 ? 0 : (double) topicConverted / enquiries));
+        });
+        topics.sort(Comparator.comparingLong(TopicAnalytics::enquiries).reversed());
+
+        return new AnalyticsSummary(totals.registrations.sum(), totals.revenue.sum(), totals.enquiries.sum(),
+                converted.sum(), courses, sectors, topics);
+    }
+
+    /**
+     * One entry per day from {@code from} to {@code to} inclusive (at most {@value #MAX_DAYS} days).
+     */
+    public List<DayAnalytics> getDaily(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if (to.toEpochDay() - from.toEpochDay() >= MAX_DAYS) {
+            throw new IllegalArgumentException("At most " + MAX_DAYS + " days per request");
+        }
+        List<DayAnalytics> days = new ArrayList<>();
+        for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+            Counters counters = byDay.getOrDefault(day, Counters.EMPTY);
+            days.add(new DayAnalytics(LocalDate.ofEpochDay(day),
+                    counters.registrations.sum(), counters.revenue.sum(), counters.enquiries.sum()));
+        }
+        return days;
+    }
+
+    private static Course course(SyllabusCatalog catalog, Integer courseId) {
+        return courseId != null && catalog.hasCourse(courseId) ? catalog.getCourse(courseId) : null;
+    }
+
+    private static <K> Counters counters(Map<K, Counters> counters, K key) {
+        Counters existing = counters.get(key);
+        return existing != null ? existing : counters.computeIfAbsent(key, k -> new Counters());
+    }
+
+    private TopicCounters topicCounters(String topic) {
+        String name = topic == null || topic.isBlank() ? NO_TOPIC : topic.trim();
+        TopicCounters counters = byTopic.get(name);
+        if (counters != null) {
+            return counters;
+        }
+        // Topics are free text from the client; keep the map bounded.
+        if (byTopic.size() >= MAX_TOPICS) {
+            name = OTHER_TOPICS;
+        }
+        return byTopic.computeIfAbsent(name, key -> new TopicCounters());
+    }
+
+    private static List<String> contacts(String email, String phone) {
+        List<String> contacts = new ArrayList<>(2);
+        if (email != null && !email.isBlank()) {
+            contacts.add(email.trim().toLowerCase(Locale.ROOT));
+        }
+        String digits = phone == null ? "" : phone.replaceAll("\\D", "");
+        if (digits.length() >= 10) {
+            // Last ten digits, so +91 / 0 prefixes match the bare number
+            contacts.add("tel:" + digits.substring(digits.length() - 10));
+        }
+        return contacts;
+    }
+
+    private static long parseFee(String fee) {
+        String digits = fee == null ? "" : fee.replaceAll("\\D", "");
+        return digits.isEmpty() || digits.length() > 12 ? 0 : Long.parseLong(digits);
+    }
+
+    private static final class Counters {
+        static final Counters EMPTY = new Counters();
+
+        final LongAdder registrations = new LongAdder();
+        final LongAdder revenue = new LongAdder();
+        final LongAdder enquiries = new LongAdder();
+
+        boolean isEmpty() {
+            return registrations.sum() == 0 && enquiries.sum() == 0;
+        }
+    }
+
+    private static final class TopicCounters {
+        final LongAdder enquiries = new LongAdder();
+        final LongAdder converted = new LongAdder();
+    }
+
+    private record Enquirer(TopicCounters topic, AtomicBoolean converted) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.safix.checkout.service;
+
+/**
+ * Published by {@link SyllabusService} after a reload has swapped in a new catalog snapshot.
+ */
+public record CatalogChangedEvent(SyllabusCatalog catalog) {
+}
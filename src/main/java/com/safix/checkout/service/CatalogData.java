@@ -0,0 +1,50 @@
+package com.safix.checkout.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed catalog contents, either freshly parsed from the source text files or read back from a
+ * compiled snapshot. Long texts are held as {@link TextStore} references.
+ */
+final class CatalogData {
+
+    static final String SOURCE_TEXT = "text";
+    static final String SOURCE_SNAPSHOT = "snapshot";
+
+    final String source;
+    final Map<Integer, String> sectorNameByIndex;
+    final Map<Integer, List<String>> sectorCoursesByIndex;
+    final Map<String, Integer> courseToSectorByNormalized;
+    final Map<String, String> courseFeeByNormalized;
+    final Map<Integer, Integer> sectorContentRefs;
+    final Map<Integer, Map<String, Integer>> sectionRefsBySector;
+    final Map<Integer, List<Heading>> headingsBySector;
+    final TextStore texts;
+
+    CatalogData(String source,
+                Map<Integer, String> sectorNameByIndex,
+                Map<Integer, List<String>> sectorCoursesByIndex,
+                Map<String, Integer> courseToSectorByNormalized,
+                Map<String, String> courseFeeByNormalized,
+                Map<Integer, Integer> sectorContentRefs,
+                Map<Integer, Map<String, Integer>> sectionRefsBySector,
+                Map<Integer, List<Heading>> headingsBySector,
+                TextStore texts) {
+        this.source = source;
+        this.sectorNameByIndex = sectorNameByIndex;
+        this.sectorCoursesByIndex = sectorCoursesByIndex;
+        this.courseToSectorByNormalized = courseToSectorByNormalized;
+        this.courseFeeByNormalized = courseFeeByNormalized;
+        this.sectorContentRefs = sectorContentRefs;
+        this.sectionRefsBySector = sectionRefsBySector;
+        this.headingsBySector = headingsBySector;
+        this.texts = texts;
+    }
+
+    /**
+     * A numbered heading inside a sector file and the text block that runs until the next heading.
+     */
+    record Heading(String normalized, int sectionRef) {
+    }
+}
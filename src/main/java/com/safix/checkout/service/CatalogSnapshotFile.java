@@ -0,0 +1,287 @@
+package com.safix.checkout.service;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Compact binary form of {@link CatalogData}. The file is written at build time by
+ * {@link SyllabusCatalogCompiler} and memory-mapped at startup; section and sector texts stay in the
+ * mapped region and are decoded only when a lookup returns them.
+ *
+ * <pre>
+ * int magic, int formatVersion, byte[32] sha256 of the source files
+ * sectors, courses per sector, course sectors, course fees   (small strings, copied to heap)
+ * text table (offset, length), sector content refs, section refs, headings
+ * int textRegionLength, UTF-8 text region
+ * </pre>
+ * Maps are written in iteration order and re-inserted in that order, so fuzzy lookups break ties the
+ * same way as a freshly parsed catalog.
+ */
+final class CatalogSnapshotFile {
+
+    static final int MAGIC = 0x55534443;
+    static final int FORMAT_VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+
+    private CatalogSnapshotFile() {
+    }
+
+    static void write(CatalogData data, byte[] sourceHash, Path target) throws IOException {
+        ByteArrayOutputStream region = new ByteArrayOutputStream();
+        int[] offsets = new int[data.texts.size()];
+        int[] lengths = new int[data.texts.size()];
+
+        // Full sector texts go first; sections that occur verbatim inside one become slices of it.
+        Set<Integer> contentRefs = new LinkedHashSet<>(data.sectorContentRefs.values());
+        for (int ref : contentRefs) {
+            byte[] bytes = data.texts.text(ref).getBytes(StandardCharsets.UTF_8);
+            offsets[ref] = region.size();
+            lengths[ref] = bytes.length;
+            region.write(bytes);
+        }
+        for (int ref = 0; ref < offsets.length; ref++) {
+            if (contentRefs.contains(ref)) {
+                continue;
+            }
+            String text = data.texts.text(ref);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            lengths[ref] = bytes.length;
+            offsets[ref] = -1;
+            for (int contentRef : contentRefs) {
+                String content = data.texts.text(contentRef);
+                int index = content.indexOf(text);
+                if (index >= 0) {
+                    offsets[ref] = offsets[contentRef] + content.substring(0, index).getBytes(StandardCharsets.UTF_8).length;
+                    break;
+                }
+            }
+            if (offsets[ref] < 0) {
+                offsets[ref] = region.size();
+                region.write(bytes);
+            }
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.write(sourceHash);
+
+            out.writeInt(data.sectorNameByIndex.size());
+            for (Map.Entry<Integer, String> entry : data.sectorNameByIndex.entrySet()) {
+                out.writeInt(entry.getKey());
+                writeString(out, entry.getValue());
+            }
+
+            out.writeInt(data.sectorCoursesByIndex.size());
+            for (Map.Entry<Integer, List<String>> entry : data.sectorCoursesByIndex.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String course : entry.getValue()) {
+                    writeString(out, course);
+                }
+            }
+
+            out.writeInt(data.courseToSectorByNormalized.size());
+            for (Map.Entry<String, Integer> entry : data.courseToSectorByNormalized.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+
+            out.writeInt(data.courseFeeByNormalized.size());
+            for (Map.Entry<String, String> entry : data.courseFeeByNormalized.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+
+            out.writeInt(offsets.length);
+            for (int ref = 0; ref < offsets.length; ref++) {
+                out.writeInt(offsets[ref]);
+                out.writeInt(lengths[ref]);
+            }
+
+            out.writeInt(data.sectorContentRefs.size());
+            for (Map.Entry<Integer, Integer> entry : data.sectorContentRefs.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+
+            out.writeInt(data.sectionRefsBySector.size());
+            for (Map.Entry<Integer, Map<String, Integer>> entry : data.sectionRefsBySector.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Map.Entry<String, Integer> section : entry.getValue().entrySet()) {
+                    writeString(out, section.getKey());
+                    out.writeInt(section.getValue());
+                }
+            }
+
+            out.writeInt(data.headingsBySector.size());
+            for (Map.Entry<Integer, List<CatalogData.Heading>> entry : data.headingsBySector.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (CatalogData.Heading heading : entry.getValue()) {
+                    writeString(out, heading.normalized());
+                    out.writeInt(heading.sectionRef());
+                }
+            }
+
+            out.writeInt(region.size());
+            region.writeTo(out);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file. Returns {@code null} when the file is missing, malformed, from another format
+     * version, or was compiled from different source files than {@code expectedHash}.
+     */
+    static CatalogData read(Path file, byte[] expectedHash) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ex) {
+            return null;
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            if (expectedHash != null && !MessageDigest.isEqual(hash, expectedHash)) {
+                return null;
+            }
+
+            Map<Integer, String> sectorNameByIndex = new LinkedHashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                sectorNameByIndex.put(buffer.getInt(), readString(buffer));
+            }
+
+            Map<Integer, List<String>> sectorCoursesByIndex = new LinkedHashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                int sector = buffer.getInt();
+                int count = buffer.getInt();
+                List<String> courses = new ArrayList<>(count);
+                for (int c = 0; c < count; c++) {
+                    courses.add(readString(buffer));
+                }
+                sectorCoursesByIndex.put(sector, courses);
+            }
+
+            Map<String, Integer> courseToSectorByNormalized = new HashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                courseToSectorByNormalized.put(readString(buffer), buffer.getInt());
+            }
+
+            Map<String, String> courseFeeByNormalized = new HashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                courseFeeByNormalized.put(readString(buffer), readString(buffer));
+            }
+
+            int textCount = buffer.getInt();
+            int[] offsets = new int[textCount];
+            int[] lengths = new int[textCount];
+            for (int ref = 0; ref < textCount; ref++) {
+                offsets[ref] = buffer.getInt();
+                lengths[ref] = buffer.getInt();
+            }
+
+            Map<Integer, Integer> sectorContentRefs = new HashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                sectorContentRefs.put(buffer.getInt(), buffer.getInt());
+            }
+
+            Map<Integer, Map<String, Integer>> sectionRefsBySector = new HashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                int sector = buffer.getInt();
+                Map<String, Integer> sections = new HashMap<>();
+                for (int s = buffer.getInt(); s > 0; s--) {
+                    sections.put(readString(buffer), buffer.getInt());
+                }
+                sectionRefsBySector.put(sector, sections);
+            }
+
+            Map<Integer, List<CatalogData.Heading>> headingsBySector = new LinkedHashMap<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                int sector = buffer.getInt();
+                int count = buffer.getInt();
+                List<CatalogData.Heading> headings = new ArrayList<>(count);
+                for (int h = 0; h < count; h++) {
+                    headings.add(new CatalogData.Heading(readString(buffer), buffer.getInt()));
+                }
+                headingsBySector.put(sector, headings);
+            }
+
+            int regionLength = buffer.getInt();
+            ByteBuffer region = buffer.slice(buffer.position(), regionLength);
+            for (int ref = 0; ref < textCount; ref++) {
+                if (offsets[ref] < 0 || lengths[ref] < 0 || offsets[ref] + lengths[ref] > regionLength) {
+                    return null;
+                }
+            }
+
+            return new CatalogData(CatalogData.SOURCE_SNAPSHOT, sectorNameByIndex, sectorCoursesByIndex,
+                    courseToSectorByNormalized, courseFeeByNormalized, sectorContentRefs,
+                    sectionRefsBySector, headingsBySector, new TextStore.Mapped(region, offsets, lengths));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * SHA-256 over the names and bytes of the catalog source files, in load order. Returns {@code null}
+     * when none of the source files can be found or read, in which case there is nothing to compare against.
+     */
+    static byte[] sourceHash() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            boolean anyPresent = false;
+            for (String filename : SyllabusCatalogLoader.sourceFiles()) {
+                digest.update(filename.getBytes(StandardCharsets.UTF_8));
+                Path path = SyllabusCatalogLoader.resolvePath(filename);
+                if (path == null) {
+                    digest.update((byte) 0);
+                    continue;
+                }
+                byte[] bytes = Files.readAllBytes(path);
+                digest.update((byte) 1);
+                digest.update(ByteBuffer.allocate(Long.BYTES).putLong(bytes.length).array());
+                digest.update(bytes);
+                anyPresent = true;
+            }
+            return anyPresent ? digest.digest() : null;
+        } catch (IOException | NoSuchAlgorithmException ex) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
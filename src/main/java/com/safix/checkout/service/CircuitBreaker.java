@@ -0,0 +1,154 @@
+package com.safix.checkout.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Closed / open / half-open breaker around a remote dependency. After {@code failureThreshold} consecutive
+ * failures it opens and refuses calls for {@code openDuration}, or for as long as the server asked via
+ * {@code Retry-After} if that is longer. It then lets a single probe through (half-open): success closes it,
+ * failure opens it again. State is one immutable snapshot swapped with compare-and-set; transitions are reported
+ * to the listener on the thread that caused them.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Consumer<CircuitBreakerEvent> listener;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(State.CLOSED, 0, 0, false));
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Consumer<CircuitBreakerEvent> listener) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be >= 1");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.listener = listener;
+    }
+
+    /**
+     * True if a call may go ahead now. A caller that gets {@code true} must report the call with
+     * {@link #recordSuccess()}, {@link #recordFailure(long)} or {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            switch (current.state()) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - current.openUntilNanos() < 0) {
+                        rejected.incrementAndGet();
+                        return false;
+                    }
+                    if (transition(current, new Snapshot(State.HALF_OPEN, 0, 0, true))) {
+                        return true;
+                    }
+                    break;
+                default:
+                    if (current.probing()) {
+                        rejected.incrementAndGet();
+                        return false;
+                    }
+                    if (snapshot.compareAndSet(current, new Snapshot(State.HALF_OPEN, 0, 0, true))) {
+                        return true;
+                    }
+            }
+        }
+    }
+
+    public void recordSuccess() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.state() == State.OPEN || (current.state() == State.CLOSED && current.failures() == 0)) {
+                return;
+            }
+            if (transition(current, new Snapshot(State.CLOSED, 0, 0, false))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Counts a failed call. {@code retryAfterNanos} is the server's requested pause ({@code 0} if none); when the
+     * breaker opens it stays open at least that long.
+     */
+    public void recordFailure(long retryAfterNanos) {
+        while (true) {
+            Snapshot current = snapshot.get();
+            long openUntil = System.nanoTime() + Math.max(openNanos, retryAfterNanos);
+            Snapshot next;
+            if (current.state() == State.OPEN) {
+                // A call that was already in flight; only stretch the pause if the server asked for longer.
+                if (openUntil - current.openUntilNanos() <= 0) {
+                    return;
+                }
+                next = new Snapshot(State.OPEN, current.failures(), openUntil, false);
+            } else if (current.state() == State.HALF_OPEN || current.failures() + 1 >= failureThreshold) {
+                next = new Snapshot(State.OPEN, current.failures() + 1, openUntil, false);
+            } else {
+                next = new Snapshot(State.CLOSED, current.failures() + 1, 0, false);
+            }
+            if (transition(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gives back a permit whose call never reached the server, so a half-open breaker can probe again.
+     */
+    public void release() {
+        Snapshot current = snapshot.get();
+        if (current.state() == State.HALF_OPEN && current.probing()) {
+            snapshot.compareAndSet(current, new Snapshot(State.HALF_OPEN, 0, 0, false));
+        }
+    }
+
+    public State getState() {
+        return snapshot.get().state();
+    }
+
+    /**
+     * Milliseconds until an open breaker lets a probe through; {@code 0} when not open.
+     */
+    public long getRemainingOpenMillis() {
+        Snapshot current = snapshot.get();
+        if (current.state() != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, Duration.ofNanos(current.openUntilNanos() - System.nanoTime()).toMillis());
+    }
+
+    public long getOpened() {
+        return opened.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private boolean transition(Snapshot current, Snapshot next) {
+        if (!snapshot.compareAndSet(current, next)) {
+            return false;
+        }
+        if (current.state() != next.state()) {
+            if (next.state() == State.OPEN) {
+                opened.incrementAndGet();
+            }
+            listener.accept(new CircuitBreakerEvent(name, current.state(), next.state(), next.failures()));
+        }
+        return true;
+    }
+
+    private record Snapshot(State state, int failures, long openUntilNanos, boolean probing) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.safix.checkout.service;
+
+import java.time.Instant;
+
+/**
+ * Published when a {@link CircuitBreaker} changes state. {@code failures} is the consecutive-failure count that
+ * led to an open breaker.
+ */
+public record CircuitBreakerEvent(String name, CircuitBreaker.State from, CircuitBreaker.State to, int failures,
+                                  Instant at) {
+
+    CircuitBreakerEvent(String name, CircuitBreaker.State from, CircuitBreaker.State to, int failures) {
+        this(name, from, to, failures, Instant.now());
+    }
+}
@@ -0,0 +1,48 @@
+package com.safix.checkout.service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Size-bounded memo on a {@link ConcurrentHashMap}, so hits never lock. Eviction is approximate: once
+ * {@code maxEntries} is reached, an eighth of the entries are dropped in table order, which follows the key
+ * hashes rather than access order. Two threads missing on the same key may both compute it.
+ */
+final class ConcurrentMemo<K, V> {
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<K, V> entries;
+
+    ConcurrentMemo(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new ConcurrentHashMap<>(maxEntries * 4 / 3 + 1);
+    }
+
+    V computeIfAbsent(K key, Function<K, V> loader) {
+        V cached = entries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            if (entries.size() >= maxEntries) {
+                evict();
+            }
+            entries.putIfAbsent(key, loaded);
+        }
+        return loaded;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        Iterator<K> keys = entries.keySet().iterator();
+        for (int i = Math.max(1, maxEntries / 8); i > 0 && keys.hasNext(); i--) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.CredentialStats;
+import com.safix.checkout.model.LoginCheck;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of login credentials (identifier → role + salted PBKDF2 hash), so verifying a login costs
+ * local CPU only. Entries come from a local file and, optionally, a credentials sheet:
+ *
+ * <pre>
+ * identifier, role, pbkdf2-sha256$&lt;iterations&gt;$&lt;base64 salt&gt;$&lt;base64 hash&gt;
+ * </pre>
+ *
+ * Readers use the {@link ConcurrentHashMap} directly. In the background, rows appended to the sheet are picked
+ * up every {@code auth.credentials.refresh-seconds}, and both sources are fully reloaded every
+ * {@code auth.credentials.full-reload-minutes} to pick up edits and removals.
+ *
+ * <p>Each check costs a full PBKDF2 derivation, so checks are rationed: each identifier and each client address
+ * gets {@code auth.throttle.attempts-per-minute} attempts, and at most {@code auth.verify.max-concurrent}
+ * derivations run at once. An attempt over either limit is turned away before any hashing.
+ */
+@Service
+public class CredentialIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CredentialIndex.class);
+
+    private static final String SCHEME = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    @Value("${auth.credentials.path:data/credentials.txt}")
+    private String credentialsPath;
+
+    @Value("${auth.credentials.sheet:}")
+    private String credentialsSheet;
+
+    @Value("${auth.credentials.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    @Value("${auth.credentials.full-reload-minutes:15}")
+    private long fullReloadMinutes;
+
+    @Value("${auth.pbkdf2.iterations:310000}")
+    private int iterations;
+
+    @Value("${auth.throttle.attempts-per-minute:10}")
+    private double attemptsPerMinute;
+
+    @Value("${auth.throttle.burst:5}")
+    private int attemptBurst;
+
+    @Value("${auth.throttle.entries:10000}")
+    private int throttleEntries;
+
+    @Value("${auth.verify.max-concurrent:4}")
+    private int maxConcurrentChecks;
+
+    @Value("${auth.verify.max-wait-ms:2000}")
+    private long maxWaitMillis;
+
+    @Autowired
+    private GoogleSheetsService googleSheetsService;
+
+    private final ConcurrentHashMap<String, Credential> credentials = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private ScheduledExecutorService refresher;
+    private volatile int sheetRowsLoaded;
+    private volatile Instant lastRefresh;
+    private volatile String lastError;
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong busy = new AtomicLong();
+    private Credential decoy;
+    private LruCache<String, RateLimiter> attemptLimiters;
+    private Semaphore checks;
+
+    @PostConstruct
+    public void start() {
+        attemptLimiters = new LruCache<>(throttleEntries);
+        checks = new Semaphore(Math.max(1, maxConcurrentChecks));
+        // Unknown identifiers are checked against this so they take as long as known ones.
+        decoy = new Credential("", "", hash(UUID.randomUUID().toString()));
+        reloadAll();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "credential-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!credentialsSheet.isBlank()) {
+            refresher.scheduleWithFixedDelay(this::refreshSheet, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+        refresher.scheduleWithFixedDelay(this::reloadAll, fullReloadMinutes, fullReloadMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * {@link LoginCheck#VERIFIED} when {@code password} matches the stored hash for {@code identifier} and the entry
+     * has {@code role}. {@link LoginCheck#THROTTLED} when the identifier or {@code clientAddress} has used up its
+     * attempts, and {@link LoginCheck#BUSY} when no check could start within {@code auth.verify.max-wait-ms}.
+     */
+    public LoginCheck verify(String identifier, String role, String password, String clientAddress) {
+        String key = identifier == null ? "" : normalize(identifier);
+        // Both limiters are charged, so spraying identifiers from one address and one identifier from many both stop
+        boolean allowed = attemptLimiter("id:" + key).tryAcquire();
+        allowed &= attemptLimiter("ip:" + clientAddress).tryAcquire();
+        if (!allowed) {
+            throttled.incrementAndGet();
+            return LoginCheck.THROTTLED;
+        }
+        try {
+            if (!checks.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                busy.incrementAndGet();
+                return LoginCheck.BUSY;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return LoginCheck.BUSY;
+        }
+        try {
+            Credential credential = credentials.get(key);
+            boolean matches = matches(credential != null ? credential.hash() : decoy.hash(), password == null ? "" : password);
+            return credential != null && matches && credential.role().equalsIgnoreCase(role)
+                    ? LoginCheck.VERIFIED : LoginCheck.REJECTED;
+        } finally {
+            checks.release();
+        }
+    }
+
+    public boolean isEmpty() {
+        return credentials.isEmpty();
+    }
+
+    /**
+     * Hash string for a new password, in the format stored in the credentials file and sheet.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] derived = pbkdf2(password, salt, iterations);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return SCHEME + "$" + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(derived);
+    }
+
+    public CredentialStats getStats() {
+        return new CredentialStats(credentials.size(), sheetRowsLoaded, lastRefresh, lastError,
+                Math.max(1, maxConcurrentChecks) - checks.availablePermits(), throttled.get(), busy.get());
+    }
+
+    /**
+     * Rebuilds the index from both sources, then swaps entries into the live map so readers never see it empty.
+     */
+    public synchronized void reloadAll() {
+        Map<String, Credential> loaded = new HashMap<>();
+        int sheetRows = 0;
+        try {
+            Path file = Path.of(credentialsPath);
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank() && !line.stripLeading().startsWith("#")) {
+                        addRow(loaded, List.of((Object[]) line.split(",", 3)));
+                    }
+                }
+            }
+            if (!credentialsSheet.isBlank()) {
+                List<List<Object>> rows = googleSheetsService.readRows(credentialsSheet, 1, 3);
+                for (List<Object> row : rows) {
+                    addRow(loaded, row);
+                }
+                sheetRows = rows.size();
+            }
+        } catch (Exception ex) {
+            // Keep serving the entries we have.
+            lastError = ex.toString();
+            LOG.warn("Could not reload credentials; keeping the current entries", ex);
+            return;
+        }
+        credentials.putAll(loaded);
+        credentials.keySet().retainAll(loaded.keySet());
+        sheetRowsLoaded = sheetRows;
+        lastRefresh = Instant.now();
+        lastError = null;
+    }
+
+    /**
+     * Loads only rows appended to the credentials sheet since the last load.
+     */
+    synchronized void refreshSheet() {
+        try {
+            List<List<Object>> rows = googleSheetsService.readRows(credentialsSheet, sheetRowsLoaded + 1, 3);
+            Map<String, Credential> added = new HashMap<>();
+            for (List<Object> row : rows) {
+                addRow(added, row);
+            }
+            credentials.putAll(added);
+            sheetRowsLoaded += rows.size();
+            lastRefresh = Instant.now();
+            lastError = null;
+        } catch (Exception ex) {
+            lastError = ex.toString();
+            LOG.warn("Could not refresh credentials from the sheet", ex);
+        }
+    }
+
+    private static void addRow(Map<String, Credential> into, List<Object> row) {
+        if (row.size() < 3) {
+            return;
+        }
+        String identifier = String.valueOf(row.get(0)).trim();
+        String role = String.valueOf(row.get(1)).trim().toLowerCase(Locale.ROOT);
+        String hash = String.valueOf(row.get(2)).trim();
+        // Skips header rows and anything not in the expected hash format.
+        if (identifier.isEmpty() || !hash.startsWith(SCHEME + "$")) {
+            return;
+        }
+        into.put(normalize(identifier), new Credential(identifier, role, hash));
+    }
+
+    private RateLimiter attemptLimiter(String key) {
+        return attemptLimiters.computeIfAbsent(key, k -> new RateLimiter(attemptsPerMinute, attemptBurst));
+    }
+
+    private static boolean matches(String stored, String password) {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(SCHEME)) {
+            return false;
+        }
+        try {
+            Base64.Decoder base64 = Base64.getDecoder();
+            byte[] expected = base64.decode(parts[3]);
+            byte[] actual = pbkdf2(password, base64.decode(parts[2]), Integer.parseInt(parts[1]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ALGORITHM + " not available", ex);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Credential(String identifier, String role, String hash) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.safix.checkout.service;
 
 import com.safix.checkout.model.Registration;
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
@@ -8,6 +9,8 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class EmailService {
     
@@ -15,25 +18,24 @@ public class EmailService {
     private JavaMailSender mailSender;
     
     @Autowired
-    private PdfService pdfService;
+    private MailDispatcher mailDispatcher;
     
-    public void sendReceipt(Registration reg) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-            
-            helper.setTo(reg.getEmail());
-            helper.setSubject("Universal Skill Development Centre - Payment Receipt");
-            helper.setText(buildEmailBody(reg), true);
-            
-            // Attach PDF receipt
-            byte[] pdfBytes = pdfService.generateReceipt(reg);
-            helper.addAttachment("USDC_Receipt_" + reg.getId() + ".pdf", new ByteArrayResource(pdfBytes));
-            
-            mailSender.send(message);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    /**
+     * Builds the receipt email with {@code pdfBytes} attached and queues it on the {@link MailDispatcher}. The
+     * returned future fails rather than swallowing the error, so the caller can retry and record the real outcome.
+     */
+    public CompletableFuture<Void> sendReceipt(Registration reg, byte[] pdfBytes) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        
+        helper.setTo(reg.getEmail());
+        helper.setSubject("Universal Skill Development Centre - Payment Receipt");
+        helper.setText(buildEmailBody(reg), true);
+        
+        // Attach PDF receipt
+        helper.addAttachment("USDC_Receipt_" + reg.getId() + ".pdf", new ByteArrayResource(pdfBytes));
+        
+        return mailDispatcher.submit(message);
     }
     
     private String buildEmailBody(Registration reg) {
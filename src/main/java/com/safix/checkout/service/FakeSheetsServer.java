@@ -0,0 +1,415 @@
+package com.safix.checkout.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safix.checkout.model.FakeSheetsStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the parts of the Sheets v4 API this app uses ({@code spreadsheets.get},
+ * {@code spreadsheets.batchUpdate} with {@code appendCells}, {@code values.get} and {@code values.append}), on the
+ * JDK's built-in HTTP server. Point {@code google.sheets.root-url} at it to run without Google credentials.
+ *
+ * <p>Every request is delayed by a sample from the configured latency distribution, then may be answered with an
+ * injected 429 or 503, or a 429 once more than {@code quota-per-minute} requests arrive in the same clock
+ * minute (as the real per-user quota does). Errors use Google's JSON error body, and 429s carry
+ * {@code Retry-After}. Randomness comes from {@code seed}, so a single-threaded run is repeatable.
+ *
+ * <p>Data lives in memory only. Sheets named in {@code google.sheets.fake.sheets} exist from the start; others
+ * are created by {@code values.append}.
+ */
+@Service
+public class FakeSheetsServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FakeSheetsServer.class);
+
+    private static final Pattern SPREADSHEET_PATH = Pattern.compile("/v4/spreadsheets/([^/:]+)(?::batchUpdate)?");
+    private static final Pattern VALUES_PATH = Pattern.compile("/v4/spreadsheets/([^/]+)/values/(.+?)(:append)?");
+    private static final Pattern RANGE = Pattern.compile("([A-Z]*)(\\d*)(?::([A-Z]*)(\\d*))?");
+
+    @Value("${google.sheets.fake.enabled:false}")
+    private boolean enabled;
+
+    @Value("${google.sheets.fake.port:8089}")
+    private int port;
+
+    @Value("${google.sheets.fake.threads:16}")
+    private int threads;
+
+    @Value("${google.sheets.fake.sheets:Enquiry,DB,Login}")
+    private String initialSheets;
+
+    @Value("${google.sheets.fake.latency-distribution:lognormal}")
+    private String latencyDistribution;
+
+    @Value("${google.sheets.fake.latency-ms:80}")
+    private double latencyMillis;
+
+    @Value("${google.sheets.fake.latency-spread:0.5}")
+    private double latencySpread;
+
+    @Value("${google.sheets.fake.error-429-rate:0}")
+    private double error429Rate;
+
+    @Value("${google.sheets.fake.error-5xx-rate:0}")
+    private double error5xxRate;
+
+    @Value("${google.sheets.fake.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${google.sheets.fake.quota-per-minute:60}")
+    private int quotaPerMinute;
+
+    @Value("${google.sheets.fake.seed:42}")
+    private long seed;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, FakeSheet> sheets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSheetId = new AtomicLong(1000);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rowsAppended = new AtomicLong();
+    private final AtomicLong injected429 = new AtomicLong();
+    private final AtomicLong injected5xx = new AtomicLong();
+    private final AtomicLong quotaExceeded = new AtomicLong();
+    // (epoch minute << 32) | requests counted in that minute
+    private final AtomicLong quotaWindow = new AtomicLong();
+    private Random random;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        random = new Random(seed);
+        for (String title : initialSheets.split(",")) {
+            if (!title.isBlank()) {
+                sheet(title.trim());
+            }
+        }
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "fake-sheets");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        LOG.info("Fake Google Sheets API listening on http://127.0.0.1:{}/", server.getAddress().getPort());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public FakeSheetsStats getStats() {
+        Map<String, Integer> rows = new TreeMap<>();
+        sheets.forEach((title, sheet) -> rows.put(title, sheet.rows().size()));
+        return new FakeSheetsStats(enabled, requests.get(), rowsAppended.get(), injected429.get(), injected5xx.get(),
+                quotaExceeded.get(), rows);
+    }
+
+    /**
+     * Copy of a sheet's rows, for inspecting what a run wrote.
+     */
+    public List<List<Object>> rows(String title) {
+        FakeSheet sheet = sheets.get(title);
+        return sheet == null ? List.of() : List.copyOf(sheet.rows());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            sleep(sampleLatencyMillis());
+            if (!withinQuota()) {
+                quotaExceeded.incrementAndGet();
+                sendError(exchange, 429, "RESOURCE_EXHAUSTED",
+                        "Quota exceeded for quota metric 'Requests' and limit 'Requests per minute per user'.");
+                return;
+            }
+            double roll = nextDouble();
+            if (roll < error429Rate) {
+                injected429.incrementAndGet();
+                sendError(exchange, 429, "RESOURCE_EXHAUSTED", "Injected rate limit error.");
+                return;
+            }
+            if (roll < error429Rate + error5xxRate) {
+                injected5xx.incrementAndGet();
+                sendError(exchange, 503, "UNAVAILABLE", "Injected server error.");
+                return;
+            }
+            route(exchange);
+        } catch (RuntimeException ex) {
+            LOG.error("Fake Sheets API failed on {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), ex);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Matcher values = VALUES_PATH.matcher(path);
+        if (values.matches()) {
+            String range = values.group(2);
+            if (values.group(3) != null && method.equals("POST")) {
+                appendValues(exchange, values.group(1), range);
+            } else if (values.group(3) == null && method.equals("GET")) {
+                getValues(exchange, range);
+            } else {
+                sendError(exchange, 405, "INVALID_ARGUMENT", "Unsupported method " + method + " for " + path);
+            }
+            return;
+        }
+        Matcher spreadsheet = SPREADSHEET_PATH.matcher(path);
+        if (spreadsheet.matches() && path.endsWith(":batchUpdate") && method.equals("POST")) {
+            batchUpdate(exchange, spreadsheet.group(1));
+        } else if (spreadsheet.matches() && method.equals("GET")) {
+            getSpreadsheet(exchange, spreadsheet.group(1));
+        } else {
+            sendError(exchange, 404, "NOT_FOUND", "No fake handler for " + method + " " + path);
+        }
+    }
+
+    private void getSpreadsheet(HttpExchange exchange, String spreadsheetId) throws IOException {
+        List<Map<String, Object>> list = new ArrayList<>();
+        sheets.forEach((title, sheet) -> list.add(Map.of("properties", Map.of("sheetId", sheet.id(), "title", title))));
+        sendJson(exchange, 200, Map.of("spreadsheetId", spreadsheetId, "sheets", list));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void batchUpdate(HttpExchange exchange, String spreadsheetId) throws IOException {
+        Map<String, Object> body = readJson(exchange);
+        List<Map<String, Object>> requests = (List<Map<String, Object>>) body.getOrDefault("requests", List.of());
+        // Validate the whole batch first: Sheets applies batchUpdate atomically.
+        List<FakeSheet> targets = new ArrayList<>();
+        for (Map<String, Object> request : requests) {
+            Map<String, Object> append = (Map<String, Object>) request.get("appendCells");
+            FakeSheet sheet = append == null ? null : sheetById(((Number) append.get("sheetId")).intValue());
+            if (sheet == null) {
+                sendError(exchange, 400, "INVALID_ARGUMENT", append == null
+                        ? "Only appendCells requests are supported by the fake."
+                        : "No grid with id: " + append.get("sheetId"));
+                return;
+            }
+            targets.add(sheet);
+        }
+        List<Map<String, Object>> replies = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Map<String, Object> append = (Map<String, Object>) requests.get(i).get("appendCells");
+            List<List<Object>> rows = new ArrayList<>();
+            for (Map<String, Object> row : (List<Map<String, Object>>) append.getOrDefault("rows", List.of())) {
+                List<Object> cells = new ArrayList<>();
+                for (Map<String, Object> cell : (List<Map<String, Object>>) row.getOrDefault("values", List.of())) {
+                    cells.add(cellValue((Map<String, Object>) cell.get("userEnteredValue")));
+                }
+                rows.add(cells);
+            }
+            targets.get(i).rows().addAll(rows);
+            rowsAppended.addAndGet(rows.size());
+            replies.add(Map.of());
+        }
+        sendJson(exchange, 200, Map.of("spreadsheetId", spreadsheetId, "replies", replies));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void appendValues(HttpExchange exchange, String spreadsheetId, String range) throws IOException {
+        Map<String, Object> body = readJson(exchange);
+        List<List<Object>> rows = (List<List<Object>>) body.getOrDefault("values", List.of());
+        FakeSheet sheet = sheet(sheetTitle(range));
+        int firstRow = sheet.rows().size() + 1;
+        sheet.rows().addAll(rows);
+        rowsAppended.addAndGet(rows.size());
+        sendJson(exchange, 200, Map.of(
+                "spreadsheetId", spreadsheetId,
+                "updates", Map.of("updatedRange", sheetTitle(range) + "!A" + firstRow, "updatedRows", rows.size())));
+    }
+
+    private void getValues(HttpExchange exchange, String range) throws IOException {
+        FakeSheet sheet = sheets.get(sheetTitle(range));
+        if (sheet == null) {
+            sendError(exchange, 400, "INVALID_ARGUMENT", "Unable to parse range: " + range);
+            return;
+        }
+        int bang = range.lastIndexOf('!');
+        Matcher cells = RANGE.matcher(bang < 0 ? "" : range.substring(bang + 1));
+        int firstRow = 1;
+        int firstColumn = 0;
+        int lastColumn = Integer.MAX_VALUE;
+        if (cells.matches()) {
+            firstRow = cells.group(2).isEmpty() ? 1 : Integer.parseInt(cells.group(2));
+            firstColumn = cells.group(1).isEmpty() ? 0 : column(cells.group(1));
+            String end = cells.group(3) != null ? cells.group(3) : cells.group(1);
+            lastColumn = end.isEmpty() ? Integer.MAX_VALUE : column(end);
+        }
+        List<List<Object>> result = new ArrayList<>();
+        List<List<Object>> rows = List.copyOf(sheet.rows());
+        for (int i = firstRow - 1; i < rows.size(); i++) {
+            List<Object> row = rows.get(i);
+            int to = Math.min(row.size(), lastColumn == Integer.MAX_VALUE ? row.size() : lastColumn + 1);
+            result.add(firstColumn < to ? new ArrayList<>(row.subList(firstColumn, to)) : new ArrayList<>());
+        }
+        // Like the real API, trailing empty rows are not returned.
+        while (!result.isEmpty() && result.get(result.size() - 1).isEmpty()) {
+            result.remove(result.size() - 1);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("range", range);
+        response.put("majorDimension", "ROWS");
+        if (!result.isEmpty()) {
+            response.put("values", result);
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    private FakeSheet sheet(String title) {
+        return sheets.computeIfAbsent(title, t -> new FakeSheet((int) nextSheetId.getAndIncrement(), new CopyOnWriteArrayList<>()));
+    }
+
+    private FakeSheet sheetById(int id) {
+        for (FakeSheet sheet : sheets.values()) {
+            if (sheet.id() == id) {
+                return sheet;
+            }
+        }
+        return null;
+    }
+
+    private boolean withinQuota() {
+        if (quotaPerMinute <= 0) {
+            return true;
+        }
+        long minute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+        while (true) {
+            long current = quotaWindow.get();
+            long count = (current >>> 32) == minute ? (current & 0xFFFFFFFFL) : 0;
+            if (count >= quotaPerMinute) {
+                return false;
+            }
+            if (quotaWindow.compareAndSet(current, (minute << 32) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    private long sampleLatencyMillis() {
+        if (latencyMillis <= 0) {
+            return 0;
+        }
+        double sample = switch (latencyDistribution.toLowerCase(Locale.ROOT)) {
+            case "fixed" -> latencyMillis;
+            case "uniform" -> latencyMillis * (1 + latencySpread * (2 * nextDouble() - 1));
+            case "exponential" -> -latencyMillis * Math.log(1 - nextDouble());
+            // Median latency-ms, sigma latency-spread: a long right tail, like real API latency.
+            case "lognormal" -> latencyMillis * Math.exp(latencySpread * nextGaussian());
+            default -> throw new IllegalStateException("Unknown google.sheets.fake.latency-distribution: " + latencyDistribution);
+        };
+        return Math.max(0, Math.round(sample));
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private double nextGaussian() {
+        synchronized (random) {
+            return random.nextGaussian();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Object cellValue(Map<String, Object> value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.containsKey("stringValue")) {
+            return value.get("stringValue");
+        }
+        if (value.containsKey("numberValue")) {
+            return value.get("numberValue");
+        }
+        if (value.containsKey("boolValue")) {
+            return value.get("boolValue");
+        }
+        return "";
+    }
+
+    private static String sheetTitle(String range) {
+        int bang = range.lastIndexOf('!');
+        String title = bang < 0 ? range : range.substring(0, bang);
+        if (title.length() >= 2 && title.startsWith("'") && title.endsWith("'")) {
+            title = title.substring(1, title.length() - 1).replace("''", "'");
+        }
+        return title;
+    }
+
+    private static int column(String letters) {
+        int column = 0;
+        for (char letter : letters.toCharArray()) {
+            column = column * 26 + (letter - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readJson(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            return body.length == 0 ? Map.of() : objectMapper.readValue(body, Map.class);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int code, String status, String message) throws IOException {
+        if (code == 429 && retryAfterSeconds > 0) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+        }
+        sendJson(exchange, code, Map.of("error", Map.of("code", code, "message", message, "status", status)));
+    }
+
+    private void sendJson(HttpExchange exchange, int code, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record FakeSheet(int id, List<List<Object>> rows) {
+    }
+}
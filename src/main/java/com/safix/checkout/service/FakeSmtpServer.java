@@ -0,0 +1,235 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.FakeSmtpStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for an SMTP server, for running the receipt emails without Gmail. Set {@code spring.mail.host}
+ * to {@code 127.0.0.1} and {@code spring.mail.port} to {@code mail.fake.port}.
+ *
+ * <p>It speaks enough ESMTP for Jakarta Mail (EHLO, AUTH PLAIN/LOGIN accepting any credentials, MAIL, RCPT,
+ * DATA, RSET, NOOP, QUIT; no STARTTLS) and discards what it receives. {@code handshake-latency-ms} delays the
+ * greeting and the AUTH reply, standing in for the TCP/TLS/AUTH cost of a new connection, and
+ * {@code message-latency-ms} delays the reply to each message. Like real providers it can end a session after
+ * {@code max-messages-per-connection} messages (421), and it drops the connection after a message with
+ * probability {@code drop-rate}.
+ */
+@Service
+public class FakeSmtpServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FakeSmtpServer.class);
+
+    @Value("${mail.fake.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mail.fake.port:2525}")
+    private int port;
+
+    @Value("${mail.fake.threads:16}")
+    private int threads;
+
+    @Value("${mail.fake.handshake-latency-ms:150}")
+    private long handshakeLatencyMillis;
+
+    @Value("${mail.fake.message-latency-ms:20}")
+    private long messageLatencyMillis;
+
+    @Value("${mail.fake.max-messages-per-connection:0}")
+    private int maxMessagesPerConnection;
+
+    @Value("${mail.fake.drop-rate:0}")
+    private double dropRate;
+
+    @Value("${mail.fake.seed:42}")
+    private long seed;
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong authentications = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong refusedOverLimit = new AtomicLong();
+    private Random random;
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        random = new Random(seed);
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        executor = Executors.newFixedThreadPool(Math.max(1, threads) + 1, runnable -> {
+            Thread thread = new Thread(runnable, "fake-smtp");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::accept);
+        LOG.info("Fake SMTP server listening on 127.0.0.1:{}", serverSocket.getLocalPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The port actually listened on, which differs from {@code mail.fake.port} when that is 0.
+     */
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : port;
+    }
+
+    public FakeSmtpStats getStats() {
+        return new FakeSmtpStats(enabled, connections.get(), authentications.get(), messages.get(), bytes.get(),
+                dropped.get(), refusedOverLimit.get());
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> session(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOG.warn("Fake SMTP server could not accept a connection", e);
+                }
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        connections.incrementAndGet();
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1));
+            sleep(handshakeLatencyMillis);
+            reply(out, "220 fake-smtp ESMTP ready");
+            int sessionMessages = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String verb = (line.length() >= 4 ? line.substring(0, 4) : line).toUpperCase(Locale.ROOT);
+                switch (verb) {
+                    case "EHLO" -> reply(out, "250-fake-smtp\r\n250-AUTH LOGIN PLAIN\r\n250-8BITMIME\r\n250 SIZE 36700160");
+                    case "HELO" -> reply(out, "250 fake-smtp");
+                    case "AUTH" -> {
+                        if (!authenticate(line, in, out)) {
+                            return;
+                        }
+                    }
+                    case "MAIL" -> {
+                        if (maxMessagesPerConnection > 0 && sessionMessages >= maxMessagesPerConnection) {
+                            refusedOverLimit.incrementAndGet();
+                            reply(out, "421 4.7.0 Too many messages for this session, closing connection");
+                            return;
+                        }
+                        reply(out, "250 2.1.0 OK");
+                    }
+                    case "RCPT" -> reply(out, "250 2.1.5 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        long size = 0;
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            size += line.length() + 2;
+                        }
+                        if (line == null) {
+                            return;
+                        }
+                        sleep(messageLatencyMillis);
+                        sessionMessages++;
+                        bytes.addAndGet(size);
+                        reply(out, "250 2.0.0 OK queued as " + messages.incrementAndGet());
+                        if (dropRate > 0 && nextDouble() < dropRate) {
+                            dropped.incrementAndGet();
+                            return;
+                        }
+                    }
+                    case "RSET", "NOOP" -> reply(out, "250 2.0.0 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 2.0.0 Bye");
+                        return;
+                    }
+                    case "STAR" -> reply(out, "454 4.7.0 TLS not available");
+                    default -> reply(out, "502 5.5.2 Command not recognized");
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    /**
+     * Accepts AUTH PLAIN (with or without the initial response) and AUTH LOGIN, whatever the credentials.
+     */
+    private boolean authenticate(String line, BufferedReader in, Writer out) throws IOException {
+        String[] parts = line.trim().split("\\s+");
+        String mechanism = parts.length > 1 ? parts[1].toUpperCase(Locale.ROOT) : "";
+        if (mechanism.equals("PLAIN") && parts.length < 3) {
+            reply(out, "334 ");
+            if (in.readLine() == null) {
+                return false;
+            }
+        } else if (mechanism.equals("LOGIN")) {
+            if (parts.length < 3) {
+                reply(out, "334 VXNlcm5hbWU6");
+                if (in.readLine() == null) {
+                    return false;
+                }
+            }
+            reply(out, "334 UGFzc3dvcmQ6");
+            if (in.readLine() == null) {
+                return false;
+            }
+        } else if (!mechanism.equals("PLAIN")) {
+            reply(out, "504 5.5.4 Unrecognized authentication type");
+            return true;
+        }
+        sleep(handshakeLatencyMillis);
+        authentications.incrementAndGet();
+        reply(out, "235 2.7.0 Authentication successful");
+        return true;
+    }
+
+    private static void reply(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write("\r\n");
+        out.flush();
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,95 +1,198 @@
 package com.safix.checkout.service;
 
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpResponseException;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.SheetsScopes;
-import com.google.api.services.sheets.v4.model.AppendValuesResponse;
-import com.google.api.services.sheets.v4.model.ValueRange;
+import com.google.api.services.sheets.v4.model.*;
 import com.google.auth.http.HttpCredentialsAdapter;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.safix.checkout.model.EnquiryRequest;
 import com.safix.checkout.model.EnquiryResult;
 import com.safix.checkout.model.LoginRequest;
 import com.safix.checkout.model.LoginResult;
+import com.safix.checkout.model.SheetsStats;
+import com.safix.checkout.service.SheetsBatcher.SheetRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
-import java.util.HexFormat;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class GoogleSheetsService {
+    private static final Logger LOG = LoggerFactory.getLogger(GoogleSheetsService.class);
+
     private static final JacksonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
-    private static final long MIN_INTERVAL_MS = 1100L;
     private static final int MAX_RETRIES = 4;
     private static final long BASE_BACKOFF_MS = 250L;
     private static final long MAX_BACKOFF_MS = 5000L;
-    private static final Object RATE_LOCK = new Object();
-    private static long nextAllowedTimeMs = 0L;
+    private static final String THROTTLED_MESSAGE = "Google Sheets rate limit: request would wait longer than max-wait-ms (throttled).";
+    private static final String CIRCUIT_OPEN_MESSAGE = "Google Sheets unavailable: circuit breaker is open.";
     private final Sheets sheets;
     private final String spreadsheetId;
     private final String enquirySheetName;
     private final String databaseSheetName;
     private final String loginSheetName;
+    private final SheetsBatcher batcher;
+    private final Map<String, Integer> sheetIds = new ConcurrentHashMap<>();
+    private final RateLimiter requestLimiter;
+    private final Map<String, RateLimiter> sheetLimiters;
+    private final long maxWaitNanos;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong throttled = new AtomicLong();
+    private final CircuitBreaker breaker;
+    private final RetryBudget retryBudget;
+    private final Path outboxPath;
+    private final long outboxRetryMillis;
+    private SheetsOutbox outbox;
 
     public GoogleSheetsService(@Value("${google.sheets.spreadsheet-id:}") String spreadsheetId,
                                @Value("${google.sheets.credentials-path:}") String credentialsPath,
                                @Value("${google.sheets.credentials-json:}") String credentialsJson,
                                @Value("${google.sheets.credentials-base64:}") String credentialsBase64,
+                               @Value("${google.sheets.root-url:}") String rootUrl,
                                @Value("${google.sheets.enquiry-sheet:Sheet1}") String enquirySheetName,
                                @Value("${google.sheets.database-sheet:Sheet2}") String databaseSheetName,
-                               @Value("${google.sheets.login-sheet:Login}") String loginSheetName) {
+                               @Value("${google.sheets.login-sheet:Login}") String loginSheetName,
+                               @Value("${google.sheets.batch.max-rows:100}") int batchMaxRows,
+                               @Value("${google.sheets.batch.max-delay-ms:250}") long batchMaxDelayMs,
+                               @Value("${google.sheets.rate.requests-per-minute:60}") double requestsPerMinute,
+                               @Value("${google.sheets.rate.burst:5}") int burst,
+                               @Value("${google.sheets.rate.sheet-requests-per-minute:}") String sheetRequestsPerMinute,
+                               @Value("${google.sheets.rate.max-wait-ms:10000}") long maxWaitMs,
+                               @Value("${google.sheets.outbox.path:data/sheets-outbox.log}") String outboxPath,
+                               @Value("${google.sheets.outbox.retry-ms:30000}") long outboxRetryMillis,
+                               @Value("${google.sheets.breaker.failure-threshold:5}") int breakerFailureThreshold,
+                               @Value("${google.sheets.breaker.open-ms:30000}") long breakerOpenMs,
+                               @Value("${google.sheets.retry.budget-percent:20}") int retryBudgetPercent,
+                               @Value("${google.sheets.retry.budget-max:10}") int retryBudgetMax,
+                               ApplicationEventPublisher eventPublisher) {
         this.spreadsheetId = spreadsheetId;
         this.enquirySheetName = enquirySheetName;
         this.databaseSheetName = databaseSheetName;
         this.loginSheetName = loginSheetName;
-        this.sheets = buildSheetsClient(credentialsPath, credentialsJson, credentialsBase64);
+        this.requestLimiter = new RateLimiter(requestsPerMinute, burst);
+        this.sheetLimiters = parseSheetLimits(sheetRequestsPerMinute, burst);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.outboxPath = Path.of(outboxPath);
+        this.outboxRetryMillis = outboxRetryMillis;
+        this.breaker = new CircuitBreaker("google-sheets", breakerFailureThreshold, Duration.ofMillis(breakerOpenMs), event -> {
+            LOG.warn("Google Sheets circuit breaker {} -> {}", event.from(), event.to());
+            eventPublisher.publishEvent(event);
+        });
+        this.retryBudget = new RetryBudget(retryBudgetPercent, retryBudgetMax);
+        this.sheets = buildSheetsClient(credentialsPath, credentialsJson, credentialsBase64, rootUrl);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sheets-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batcher = isConfigured() ? new SheetsBatcher(this::sendBatch, batchMaxRows, batchMaxDelayMs) : null;
+    }
+
+    @PostConstruct
+    public void openOutbox() throws IOException {
+        if (isConfigured()) {
+            outbox = new SheetsOutbox(outboxPath, batcher, this::loadIds, GoogleSheetsService::isRejected, outboxRetryMillis);
+        }
     }
 
-    public LoginResult appendLogin(LoginRequest request) {
+    @PreDestroy
+    public void close() throws IOException {
+        // Outbox first: its drainer stops feeding the batcher, which then flushes what it holds.
+        if (outbox != null) {
+            outbox.close();
+        }
+        if (batcher != null) {
+            batcher.close();
+        }
+        scheduler.shutdown();
+    }
+
+    public SheetsStats getStats() {
+        return new SheetsStats(
+                isConfigured(),
+                outbox != null ? outbox.getBacklog() : 0,
+                outbox != null ? outbox.getOldestUndeliveredAgeMillis() : 0,
+                outbox != null ? outbox.getDelivered() : 0,
+                outbox != null ? outbox.getDuplicatesSkipped() : 0,
+                outbox != null ? outbox.getDeadLettered() : 0,
+                batcher != null ? batcher.getRowsSent() : 0,
+                batcher != null ? batcher.getBatchesSent() : 0,
+                batcher != null ? batcher.getBatchesFailed() : 0,
+                throttled.get(),
+                breaker.getState().name(),
+                breaker.getOpened(),
+                breaker.getRejected(),
+                breaker.getRemainingOpenMillis(),
+                retryBudget.getRetries(),
+                retryBudget.getDenied()
+        );
+    }
+
+    /**
+     * Stores the login audit row in the local outbox; the future completes once it is on disk. It reaches the
+     * sheet in the background.
+     */
+    public CompletableFuture<LoginResult> appendLogin(LoginRequest request) {
         if (!isConfigured()) {
-            return LoginResult.fail("Google Sheets not configured. Add google.sheets.spreadsheet-id and credentials (path/json/base64) in application.properties.");
+            return CompletableFuture.completedFuture(LoginResult.fail("Google Sheets not configured. Add google.sheets.spreadsheet-id and credentials (path/json/base64) in application.properties."));
+        }
+        if (isBlank(loginSheetName)) {
+            return CompletableFuture.completedFuture(LoginResult.fail("Login sheet name is not configured."));
         }
 
         List<Object> row = List.of(
                 safe(request.getSubmittedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)),
-                safe(request.getId()),
+                safe(idText(request.getId())),
                 safe(request.getRole()),
                 safe(request.getIdentifier()),
-                safe(hashPassword(request.getPassword())),
+                // Former password-hash column, kept so existing columns stay aligned
+                "",
                 safe(request.getIpAddress()),
                 safe(request.getUserAgent()),
-                safe(request.getSource())
+                safe(request.getSource()),
+                safe(request.getOutcome())
         );
 
-        String loginError = appendRow(loginSheetName, row, "Login");
-        if (loginError == null) {
-            return LoginResult.ok("Login stored.");
-        }
-        return LoginResult.fail(loginError);
+        return outbox.append(request.getId(), List.of(new SheetRow(loginSheetName, row)))
+                .handle((offset, ex) -> ex == null ? LoginResult.ok("Login stored.") : LoginResult.fail(errorMessage(ex)));
     }
 
-    public EnquiryResult appendEnquiry(EnquiryRequest request) {
+    /**
+     * Stores the enquiry row for the enquiry sheet and, when configured, the database sheet in the local outbox.
+     * Both copies are later written in the same request, so they succeed or fail together.
+     */
+    public CompletableFuture<EnquiryResult> appendEnquiry(EnquiryRequest request) {
         if (!isConfigured()) {
-            return EnquiryResult.fail("Google Sheets not configured. Add google.sheets.spreadsheet-id and credentials (path/json/base64) in application.properties.");
+            return CompletableFuture.completedFuture(EnquiryResult.fail("Google Sheets not configured. Add google.sheets.spreadsheet-id and credentials (path/json/base64) in application.properties."));
+        }
+        if (isBlank(enquirySheetName)) {
+            return CompletableFuture.completedFuture(EnquiryResult.fail("Enquiry sheet name is not configured."));
         }
 
         List<Object> row = List.of(
                 safe(request.getSubmittedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)),
-                safe(request.getId()),
+                safe(idText(request.getId())),
                 safe(request.getFirstName()),
                 safe(request.getLastName()),
                 safe(request.getCity()),
@@ -100,144 +203,374 @@ public class GoogleSheetsService {
                 safe(request.isWhatsappConsent()),
                 safe(request.getIpAddress()),
                 safe(request.getUserAgent()),
-                safe(request.getSource())
+                safe(request.getSource()),
+                safe(request.getCourse()),
+                safe(request.getCourseId())
         );
 
-        String primaryError = appendRow(enquirySheetName, row, "Enquiry");
-        if (primaryError != null) {
-            return EnquiryResult.fail(primaryError);
-        }
-        if (databaseSheetName != null && !databaseSheetName.isBlank()) {
-            String databaseError = appendRow(databaseSheetName, row, "Database");
-            if (databaseError != null) {
-                return EnquiryResult.fail(databaseError);
-            }
+        List<SheetRow> rows = new ArrayList<>(2);
+        rows.add(new SheetRow(enquirySheetName, row));
+        if (!isBlank(databaseSheetName)) {
+            rows.add(new SheetRow(databaseSheetName, row));
         }
-        return EnquiryResult.ok("Enquiry stored.");
+        return outbox.append(request.getId(), rows)
+                .handle((offset, ex) -> ex == null ? EnquiryResult.ok("Enquiry stored.") : EnquiryResult.fail(errorMessage(ex)));
     }
 
-    private Sheets buildSheetsClient(String credentialsPath, String credentialsJson, String credentialsBase64) {
+    private Sheets buildSheetsClient(String credentialsPath, String credentialsJson, String credentialsBase64, String rootUrl) {
         boolean hasPath = credentialsPath != null && !credentialsPath.isBlank();
         boolean hasJson = credentialsJson != null && !credentialsJson.isBlank();
         boolean hasBase64 = credentialsBase64 != null && !credentialsBase64.isBlank();
+        if (!isBlank(rootUrl) && !hasPath && !hasJson && !hasBase64) {
+            // A stand-in such as FakeSheetsServer: no credentials needed.
+            return buildClient(request -> { }, rootUrl);
+        }
         if (!hasPath && !hasJson && !hasBase64) {
+            LOG.warn("Google Sheets is disabled: no credentials configured (set GOOGLE_SHEETS_CREDENTIALS_PATH, "
+                    + "google.sheets.credentials-json or google.sheets.credentials-base64)");
             return null;
         }
         try (InputStream in = openCredentialsStream(credentialsPath, credentialsJson, credentialsBase64)) {
-            if (in == null) {
-                return null;
-            }
             GoogleCredentials credentials = GoogleCredentials.fromStream(in)
                     .createScoped(List.of(SheetsScopes.SPREADSHEETS));
-            HttpRequestInitializer initializer = new HttpCredentialsAdapter(credentials);
-            return new Sheets.Builder(GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY, initializer)
-                    .setApplicationName("Universal Skills Website")
-                    .build();
+            return buildClient(new HttpCredentialsAdapter(credentials), rootUrl);
         } catch (Exception ex) {
+            LOG.error("Google Sheets is disabled: could not load credentials from {}",
+                    hasPath ? credentialsPath : hasJson ? "google.sheets.credentials-json" : "google.sheets.credentials-base64", ex);
             return null;
         }
     }
 
-    private InputStream openCredentialsStream(String credentialsPath, String credentialsJson, String credentialsBase64) {
+    private Sheets buildClient(HttpRequestInitializer initializer, String rootUrl) {
         try {
-            if (credentialsPath != null && !credentialsPath.isBlank()) {
-                return Files.newInputStream(Path.of(credentialsPath));
-            }
-            if (credentialsJson != null && !credentialsJson.isBlank()) {
-                String normalized = credentialsJson.replace("\\n", "\n");
-                return new ByteArrayInputStream(normalized.getBytes(StandardCharsets.UTF_8));
-            }
-            if (credentialsBase64 != null && !credentialsBase64.isBlank()) {
-                byte[] decoded = Base64.getDecoder().decode(credentialsBase64);
-                return new ByteArrayInputStream(decoded);
+            Sheets.Builder builder = new Sheets.Builder(GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY, initializer)
+                    .setApplicationName("Universal Skills Website");
+            if (!isBlank(rootUrl)) {
+                builder.setRootUrl(rootUrl.endsWith("/") ? rootUrl : rootUrl + "/");
             }
+            return builder.build();
         } catch (Exception ex) {
+            LOG.error("Google Sheets is disabled: could not create the Sheets client", ex);
             return null;
         }
-        return null;
+    }
+
+    private InputStream openCredentialsStream(String credentialsPath, String credentialsJson, String credentialsBase64) throws IOException {
+        if (credentialsPath != null && !credentialsPath.isBlank()) {
+            return Files.newInputStream(Path.of(credentialsPath));
+        }
+        if (credentialsJson != null && !credentialsJson.isBlank()) {
+            String normalized = credentialsJson.replace("\\n", "\n");
+            return new ByteArrayInputStream(normalized.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] decoded = Base64.getDecoder().decode(credentialsBase64);
+        return new ByteArrayInputStream(decoded);
     }
 
     private boolean isConfigured() {
         return sheets != null && spreadsheetId != null && !spreadsheetId.isBlank();
     }
 
-    private String appendRow(String sheetName, List<Object> row, String label) {
-        if (sheetName == null || sheetName.isBlank()) {
-            return label + " sheet name is not configured.";
-        }
-        for (int attempt = 0; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                throttleRequests();
-                ValueRange body = new ValueRange().setValues(List.of(row));
-                AppendValuesResponse response = sheets.spreadsheets().values()
-                        .append(spreadsheetId, sheetName, body)
-                        .setValueInputOption("RAW")
-                        .setInsertDataOption("INSERT_ROWS")
-                        .execute();
-                if (response.getUpdates() != null) {
-                    return null;
-                }
-                return label + " could not be stored.";
-            } catch (Exception ex) {
-                if (!isRetryable(ex) || attempt == MAX_RETRIES) {
-                    return "Google Sheets error: " + ex.getMessage();
-                }
+    /**
+     * Writes a batch as one {@code spreadsheets.batchUpdate} with an {@code AppendCellsRequest} per target sheet.
+     * The request and each retry are scheduled for when the rate limits allow them; no thread sleeps waiting.
+     */
+    private CompletableFuture<Void> sendBatch(List<SheetRow> rows) {
+        Map<String, List<RowData>> bySheet = new LinkedHashMap<>();
+        for (SheetRow row : rows) {
+            bySheet.computeIfAbsent(row.sheetName(), name -> new ArrayList<>()).add(toRowData(row.values()));
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        attempt(bySheet, 0, done);
+        return done;
+    }
+
+    /**
+     * One try at a batch. While the breaker is open the batch fails at once and its rows wait in the outbox.
+     * Retries are paced by the server's {@code Retry-After} when it sends one, and drawn from the shared retry
+     * budget.
+     */
+    private void attempt(Map<String, List<RowData>> bySheet, int attempt, CompletableFuture<Void> done) {
+        if (!breaker.tryAcquire()) {
+            done.completeExceptionally(new IllegalStateException(CIRCUIT_OPEN_MESSAGE));
+            return;
+        }
+        if (attempt == 0) {
+            retryBudget.recordCall();
+        }
+        long wait = reserve(bySheet.keySet());
+        if (wait < 0) {
+            breaker.release();
+            throttled.incrementAndGet();
+            done.completeExceptionally(new IllegalStateException(THROTTLED_MESSAGE));
+            return;
+        }
+        try {
+            scheduler.schedule(() -> sendOnce(bySheet, attempt, done), wait, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down: the call never starts, so hand the breaker permit back
+            breaker.release();
+            done.completeExceptionally(ex);
+        }
+    }
+
+    private void sendOnce(Map<String, List<RowData>> bySheet, int attempt, CompletableFuture<Void> done) {
+        try {
+            executeBatch(bySheet);
+            breaker.recordSuccess();
+            done.complete(null);
+        } catch (Exception ex) {
+            if (!isRetryable(ex)) {
+                // The server answered; the request itself was wrong.
+                breaker.recordSuccess();
+                done.completeExceptionally(ex);
+                return;
+            }
+            long retryAfter = retryAfterNanos(ex);
+            breaker.recordFailure(retryAfter);
+            if (attempt == MAX_RETRIES || retryAfter > maxWaitNanos || !retryBudget.tryRetry()) {
+                done.completeExceptionally(ex);
+            } else {
+                long delay = retryAfter > 0 ? retryAfter : TimeUnit.MILLISECONDS.toNanos(backoffMillis(attempt));
                 try {
-                    backoffDelay(attempt);
-                } catch (InterruptedException interrupted) {
-                    Thread.currentThread().interrupt();
-                    return "Google Sheets error: interrupted while retrying.";
+                    scheduler.schedule(() -> attempt(bySheet, attempt + 1, done), delay, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException rejected) {
+                    done.completeExceptionally(ex);
                 }
             }
         }
-        return label + " could not be stored.";
     }
 
-    private void throttleRequests() throws InterruptedException {
-        synchronized (RATE_LOCK) {
-            long now = System.currentTimeMillis();
-            long waitMs = nextAllowedTimeMs - now;
-            if (waitMs > 0) {
-                Thread.sleep(waitMs);
+    private void executeBatch(Map<String, List<RowData>> bySheet) throws Exception {
+        List<Request> requests = new ArrayList<>(bySheet.size());
+        for (Map.Entry<String, List<RowData>> entry : bySheet.entrySet()) {
+            requests.add(new Request().setAppendCells(new AppendCellsRequest()
+                    .setSheetId(sheetId(entry.getKey()))
+                    .setRows(entry.getValue())
+                    .setFields("userEnteredValue")));
+        }
+        sheets.spreadsheets()
+                .batchUpdate(spreadsheetId, new BatchUpdateSpreadsheetRequest().setRequests(requests))
+                .execute();
+    }
+
+    /**
+     * Takes a permit from the spreadsheet-wide limiter and from each target sheet's limiter. Returns the longest
+     * of their waits, or {@code -1} if any of them cannot grant one within {@code max-wait-ms}; the permits
+     * already taken are then given back, since the request is not sent.
+     */
+    private long reserve(Collection<String> sheetNames) {
+        long wait = requestLimiter.reserve(maxWaitNanos);
+        if (wait < 0) {
+            return -1;
+        }
+        List<RateLimiter> taken = new ArrayList<>(sheetNames.size());
+        for (String sheetName : sheetNames) {
+            RateLimiter limiter = sheetLimiters.get(sheetName);
+            if (limiter == null) {
+                continue;
+            }
+            long sheetWait = limiter.reserve(maxWaitNanos);
+            if (sheetWait < 0) {
+                requestLimiter.release();
+                taken.forEach(RateLimiter::release);
+                return -1;
+            }
+            taken.add(limiter);
+            wait = Math.max(wait, sheetWait);
+        }
+        return wait;
+    }
+
+    /**
+     * Parses {@code "Enquiry:60,DB:30"} into per-sheet limiters (requests per minute).
+     */
+    private static Map<String, RateLimiter> parseSheetLimits(String spec, int burst) {
+        Map<String, RateLimiter> limiters = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return limiters;
+        }
+        for (String entry : spec.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Expected <sheet>:<requests-per-minute>, got \"" + entry.trim() + "\"");
             }
-            nextAllowedTimeMs = System.currentTimeMillis() + MIN_INTERVAL_MS;
+            limiters.put(entry.substring(0, colon).trim(),
+                    new RateLimiter(Double.parseDouble(entry.substring(colon + 1).trim()), burst));
         }
+        return limiters;
     }
 
-    private void backoffDelay(int attempt) throws InterruptedException {
+    /**
+     * Numeric id of a sheet (tab) by title, as {@code AppendCellsRequest} needs. Titles are looked up once.
+     */
+    private int sheetId(String title) throws Exception {
+        Integer id = sheetIds.get(title);
+        if (id != null) {
+            return id;
+        }
+        Spreadsheet spreadsheet = sheets.spreadsheets().get(spreadsheetId)
+                .setFields("sheets.properties(sheetId,title)")
+                .execute();
+        for (Sheet sheet : spreadsheet.getSheets()) {
+            sheetIds.put(sheet.getProperties().getTitle(), sheet.getProperties().getSheetId());
+        }
+        id = sheetIds.get(title);
+        if (id == null) {
+            throw new IllegalStateException("Sheet \"" + title + "\" not found in the spreadsheet.");
+        }
+        return id;
+    }
+
+    /**
+     * Rows of a sheet from {@code firstRow} (1-based) down, over the first {@code columns} columns. Returns an empty
+     * list when Sheets is not configured.
+     */
+    public List<List<Object>> readRows(String sheetName, int firstRow, int columns) throws IOException {
+        if (!isConfigured()) {
+            return List.of();
+        }
+        String lastColumn = String.valueOf((char) ('A' + Math.min(columns, 26) - 1));
+        String range = "'" + sheetName.replace("'", "''") + "'!A" + firstRow + ":" + lastColumn;
+        ValueRange values = guarded(() -> sheets.spreadsheets().values().get(spreadsheetId, range).execute());
+        return values.getValues() != null ? values.getValues() : List.of();
+    }
+
+    /**
+     * Ids already in a sheet's id column (B), used by the outbox to avoid re-sending rows after a restart.
+     */
+    private Set<String> loadIds(String sheetName) throws IOException {
+        String range = "'" + sheetName.replace("'", "''") + "'!B:B";
+        ValueRange values = guarded(() -> sheets.spreadsheets().values().get(spreadsheetId, range).execute());
+        Set<String> ids = new HashSet<>();
+        if (values.getValues() != null) {
+            for (List<Object> row : values.getValues()) {
+                if (!row.isEmpty()) {
+                    ids.add(String.valueOf(row.get(0)));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Runs a read through the circuit breaker: refused while open, counted towards opening it on failure.
+     */
+    private <T> T guarded(SheetsCall<T> call) throws IOException {
+        if (!breaker.tryAcquire()) {
+            throw new IOException(CIRCUIT_OPEN_MESSAGE);
+        }
+        try {
+            T result = call.execute();
+            breaker.recordSuccess();
+            return result;
+        } catch (IOException | RuntimeException ex) {
+            // Every outcome is recorded, or a half-open breaker would wait forever for its probe to finish
+            if (isRetryable(ex)) {
+                breaker.recordFailure(retryAfterNanos(ex));
+            } else {
+                breaker.recordSuccess();
+            }
+            throw ex;
+        }
+    }
+
+    private static RowData toRowData(List<Object> values) {
+        List<CellData> cells = new ArrayList<>(values.size());
+        for (Object value : values) {
+            ExtendedValue cell = new ExtendedValue();
+            if (value instanceof Number number) {
+                cell.setNumberValue(number.doubleValue());
+            } else if (value instanceof Boolean bool) {
+                cell.setBoolValue(bool);
+            } else {
+                cell.setStringValue(String.valueOf(value));
+            }
+            cells.add(new CellData().setUserEnteredValue(cell));
+        }
+        return new RowData().setValues(cells);
+    }
+
+    private static String errorMessage(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return "Google Sheets error: " + cause.getMessage();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private long backoffMillis(int attempt) {
         long exp = 1L << attempt;
         long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS * exp);
         long jitter = ThreadLocalRandom.current().nextLong(60L, 180L);
-        Thread.sleep(delay + jitter);
+        return delay + jitter;
     }
 
+    /**
+     * Throttling, server errors and network failures; these also count against the circuit breaker.
+     */
     private boolean isRetryable(Exception ex) {
-        if (ex instanceof GoogleJsonResponseException jsonEx) {
-            int code = jsonEx.getStatusCode();
-            return code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
-        }
         if (ex instanceof HttpResponseException httpEx) {
             int code = httpEx.getStatusCode();
             return code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
         }
+        if (ex instanceof IOException) {
+            // No HTTP response at all: connect/read timeouts, resets, DNS
+            return true;
+        }
         String message = ex.getMessage();
         return message != null && message.contains("429");
     }
 
-    private Object safe(Object value) {
-        return value == null ? "" : value;
+    /**
+     * The sheet refused the rows themselves (400 Bad Request, e.g. a cell over the 50,000 character limit, or
+     * 413), so sending them again cannot succeed. Auth and not-found errors are left out: those are configuration
+     * problems that affect every row and get fixed by an operator.
+     */
+    private static boolean isRejected(Throwable ex) {
+        if (ex instanceof HttpResponseException httpEx) {
+            int code = httpEx.getStatusCode();
+            return code == 400 || code == 413;
+        }
+        return false;
     }
 
-    private String hashPassword(String password) {
-        if (password == null || password.isBlank()) {
-            return "";
+    /**
+     * The server's {@code Retry-After} (delay-seconds or HTTP-date) in nanoseconds, or {@code 0} if absent.
+     */
+    private static long retryAfterNanos(Exception ex) {
+        if (!(ex instanceof HttpResponseException httpEx) || httpEx.getHeaders() == null) {
+            return 0;
+        }
+        String value = httpEx.getHeaders().getFirstHeaderStringValue("Retry-After");
+        if (value == null || value.isBlank()) {
+            return 0;
         }
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] encoded = digest.digest(password.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(encoded);
-        } catch (Exception ex) {
-            return "";
+            value = value.trim();
+            if (value.chars().allMatch(Character::isDigit)) {
+                return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+            }
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(), at).toNanos());
+        } catch (NumberFormatException | DateTimeParseException | ArithmeticException invalid) {
+            return 0;
         }
     }
+
+    // Sent as text so Sheets does not round 64-bit ids to a double
+    private String idText(Long id) {
+        return id == null ? null : id.toString();
+    }
+
+    private Object safe(Object value) {
+        return value == null ? "" : value;
+    }
+
+    @FunctionalInterface
+    private interface SheetsCall<T> {
+        T execute() throws IOException;
+    }
+
 }
@@ -0,0 +1,67 @@
+package com.safix.checkout.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-sortable 64-bit ids for registrations, enquiries and logins.
+ *
+ * <pre>
+ * bit 63      : 0
+ * bits 62..22 : milliseconds since 2024-01-01T00:00:00Z (41 bits, ~69 years)
+ * bits 21..12 : node id (ids.node-id, 0-1023; must differ between instances)
+ * bits 11..0  : sequence within the millisecond
+ * </pre>
+ *
+ * The timestamp and sequence are packed into one {@link AtomicLong} and advanced with compare-and-set, so
+ * concurrent callers never block and never see the same value. When 4096 ids are taken within one millisecond
+ * the sequence carries into the timestamp, borrowing the next millisecond; if the wall clock steps backwards the
+ * last timestamp is kept. Either way ids stay strictly increasing per node.
+ */
+@Service
+public class IdGenerator {
+
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long nodeBits;
+    // (millis since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public IdGenerator(@Value("${ids.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("ids.node-id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            long next = now > previous ? now : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeBits >>> SEQUENCE_BITS;
+    }
+
+    /**
+     * When an id was generated, to the millisecond (later, if its node was issuing more than 4096 ids/ms).
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+}
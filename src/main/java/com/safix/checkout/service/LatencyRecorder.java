@@ -0,0 +1,57 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.LatencyStats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets. Percentiles are reported as the upper
+ * bound of the bucket they fall in, which is accurate to within a factor of two.
+ */
+public class LatencyRecorder {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(BUCKETS - 1 - Long.numberOfLeadingZeros(value | 1));
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public LatencyStats snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long samples = count.sum();
+        double mean = samples == 0 ? 0 : totalNanos.sum() / 1000.0 / samples;
+        return new LatencyStats(samples, mean, percentile(counts, total, 0.50), percentile(counts, total, 0.99),
+                maxNanos.get() / 1000.0);
+    }
+
+    private static double percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return ((1L << (i + 1)) - 1) / 1000.0;
+            }
+        }
+        return Long.MAX_VALUE / 1000.0;
+    }
+}
@@ -0,0 +1,78 @@
+package com.safix.checkout.service;
+
+/**
+ * Open-addressing map from {@code long} keys to non-zero {@code byte} values, about 9 bytes per slot with no
+ * per-entry objects. Zero means "absent". Thread-safe.
+ */
+final class LongByteMap {
+
+    private long[] keys;
+    private byte[] values;
+    private int size;
+
+    LongByteMap() {
+        keys = new long[64];
+        values = new byte[64];
+    }
+
+    synchronized byte get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return 0;
+    }
+
+    synchronized void put(long key, byte value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("0 is reserved for absent keys");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        if (insert(keys, values, key, value)) {
+            size++;
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] newKeys = new long[keys.length * 2];
+        byte[] newValues = new byte[values.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != 0) {
+                insert(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    /**
+     * Returns true when {@code key} was not present.
+     */
+    private static boolean insert(long[] keys, byte[] values, long key, byte value) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
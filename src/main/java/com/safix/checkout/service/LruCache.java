@@ -0,0 +1,52 @@
+package com.safix.checkout.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Small size-bounded LRU map. Entries are evicted in access order once {@code maxEntries} is exceeded.
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final LinkedHashMap<K, V> entries;
+
+    public LruCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
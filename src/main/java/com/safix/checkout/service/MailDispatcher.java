@@ -0,0 +1,313 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.MailDispatcherStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends queued mail over a few long-lived SMTP connections instead of one connection per message.
+ *
+ * <p>Each of {@code mail.dispatcher.connections} workers owns one {@link Transport}. It takes up to
+ * {@code batch-size} queued messages at a time and sends them back to back over its open connection, so the
+ * connect, STARTTLS and AUTH round trips are paid once per connection rather than once per message. A connection
+ * is closed after {@code max-messages-per-connection} messages (providers cut long sessions off) or when it has
+ * been idle for {@code idle-close-seconds}. A message whose connection fails, or whose session the server ends
+ * (such as a 421 at the provider's per-session cap), is retried once on a fresh one; only rejected recipient
+ * addresses fail a message outright. Sends are spaced by a {@link RateLimiter} to {@code max-per-minute}.
+ *
+ * <p>Connection details come from Spring Boot's {@code spring.mail.*} settings, so pointing {@code spring.mail.host}
+ * and {@code spring.mail.port} at a local SMTP server (such as {@link FakeSmtpServer}) is enough to test it.
+ */
+@Service
+public class MailDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    @Value("${mail.dispatcher.connections:2}")
+    private int connections;
+
+    @Value("${mail.dispatcher.batch-size:20}")
+    private int batchSize;
+
+    @Value("${mail.dispatcher.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${mail.dispatcher.max-per-minute:30}")
+    private double maxPerMinute;
+
+    @Value("${mail.dispatcher.burst:5}")
+    private int burst;
+
+    @Value("${mail.dispatcher.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${mail.dispatcher.idle-close-seconds:30}")
+    private long idleCloseSeconds;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    private final LatencyRecorder sendLatency = new LatencyRecorder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionFailures = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rateLimitedNanos = new LongAdder();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    // Messages sent per clock second over the last minute, indexed by second % RATE_WINDOW_SECONDS
+    private final long[] windowSeconds = new long[RATE_WINDOW_SECONDS];
+    private final long[] windowCounts = new long[RATE_WINDOW_SECONDS];
+
+    private BlockingQueue<Outgoing> queue;
+    private RateLimiter rateLimiter;
+    private JavaMailSenderImpl smtp;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        rateLimiter = new RateLimiter(maxPerMinute, burst);
+        if (mailSender instanceof JavaMailSenderImpl impl) {
+            smtp = impl;
+        } else {
+            LOG.warn("Mail sender is not a JavaMailSenderImpl; sending without connection reuse");
+        }
+        running = true;
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatcher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < connections; i++) {
+            workers.execute(() -> work(new Connection()));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        // Whatever is left is retried by the caller (receipts stay PENDING in the journal).
+        Outgoing outgoing;
+        while ((outgoing = queue.poll()) != null) {
+            outgoing.result.completeExceptionally(new MessagingException("Mail dispatcher stopped"));
+        }
+    }
+
+    /**
+     * Queues {@code message} and returns immediately. The future completes when the SMTP server has accepted the
+     * message, or exceptionally with a {@link MessagingException}, including when the queue is full.
+     */
+    public CompletableFuture<Void> submit(MimeMessage message) throws MessagingException {
+        // Fix the headers and encoding here, on the caller's thread, not on a connection worker
+        message.saveChanges();
+        Outgoing outgoing = new Outgoing(message, System.nanoTime());
+        if (!running) {
+            outgoing.result.completeExceptionally(new MessagingException("Mail dispatcher stopped"));
+        } else if (!queue.offer(outgoing)) {
+            outgoing.result.completeExceptionally(new MessagingException("Mail queue is full"));
+        }
+        return outgoing.result;
+    }
+
+    public MailDispatcherStats getStats() {
+        long sentCount = sent.sum();
+        long batchCount = batches.sum();
+        return new MailDispatcherStats(
+                queue.size(),
+                openConnections.get(),
+                sentCount,
+                failed.sum(),
+                connectionsOpened.sum(),
+                connectionFailures.sum(),
+                sentCount == 0 ? 0 : (double) reused.sum() / sentCount,
+                batchCount,
+                batchCount == 0 ? 0 : (double) (sentCount + failed.sum()) / batchCount,
+                messagesPerSecond(),
+                rateLimitedNanos.sum() / 1_000_000,
+                sendLatency.snapshot()
+        );
+    }
+
+    private void work(Connection connection) {
+        List<Outgoing> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                batch.clear();
+                Outgoing first = queue.poll(idleCloseSeconds, TimeUnit.SECONDS);
+                if (first == null) {
+                    // Idle: give the session back before the server times it out
+                    connection.close();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                batches.increment();
+                for (Outgoing outgoing : batch) {
+                    if (!running) {
+                        break;
+                    }
+                    deliver(connection, outgoing);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+            // No-op for the messages already delivered or failed
+            batch.forEach(outgoing -> outgoing.result.completeExceptionally(
+                    new MessagingException("Mail dispatcher stopped")));
+        }
+    }
+
+    private void deliver(Connection connection, Outgoing outgoing) throws InterruptedException {
+        long wait = rateLimiter.reserve(Long.MAX_VALUE);
+        if (wait > 0) {
+            rateLimitedNanos.add(wait);
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (smtp == null) {
+                    mailSender.send(outgoing.message);
+                } else {
+                    boolean wasOpen = connection.open();
+                    connection.transport.sendMessage(outgoing.message, outgoing.message.getAllRecipients());
+                    if (wasOpen) {
+                        reused.increment();
+                    }
+                    if (++connection.messages >= maxMessagesPerConnection) {
+                        connection.close();
+                    }
+                }
+                recordSent(outgoing);
+                outgoing.result.complete(null);
+                return;
+            } catch (MessagingException | RuntimeException e) {
+                if (refusedRecipients(e)) {
+                    // The connection itself is fine; sending the same recipients again would fail the same way.
+                    failed.increment();
+                    outgoing.result.completeExceptionally(e);
+                    return;
+                }
+                connectionFailures.increment();
+                connection.close();
+                if (attempt >= 2) {
+                    failed.increment();
+                    outgoing.result.completeExceptionally(e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * True when the server rejected recipient addresses. A {@link SendFailedException} without invalid addresses
+     * is about the session instead, such as a 421 when the provider's per-session message cap is reached, and
+     * is retried on a new connection.
+     */
+    private static boolean refusedRecipients(Exception e) {
+        if (!(e instanceof SendFailedException refused)) {
+            return false;
+        }
+        Address[] invalid = refused.getInvalidAddresses();
+        return invalid != null && invalid.length > 0;
+    }
+
+    private void recordSent(Outgoing outgoing) {
+        sent.increment();
+        sendLatency.record(System.nanoTime() - outgoing.queuedAt);
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % RATE_WINDOW_SECONDS);
+        synchronized (windowCounts) {
+            if (windowSeconds[slot] != second) {
+                windowSeconds[slot] = second;
+                windowCounts[slot] = 0;
+            }
+            windowCounts[slot]++;
+        }
+    }
+
+    private double messagesPerSecond() {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        synchronized (windowCounts) {
+            for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+                if (now - windowSeconds[i] < RATE_WINDOW_SECONDS) {
+                    total += windowCounts[i];
+                }
+            }
+        }
+        return (double) total / RATE_WINDOW_SECONDS;
+    }
+
+    /**
+     * One worker's SMTP session; only that worker touches it.
+     */
+    private final class Connection {
+        Transport transport;
+        int messages;
+
+        /**
+         * Connects if needed. Returns true when an already open connection is being reused.
+         */
+        boolean open() throws MessagingException {
+            if (transport != null) {
+                return true;
+            }
+            Session session = smtp.getSession();
+            Transport fresh = session.getTransport(smtp.getProtocol() != null ? smtp.getProtocol() : "smtp");
+            fresh.connect(smtp.getHost(), smtp.getPort(), smtp.getUsername(), smtp.getPassword());
+            transport = fresh;
+            messages = 0;
+            connectionsOpened.increment();
+            openConnections.incrementAndGet();
+            return false;
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                // Already broken; nothing to hand back
+            }
+            transport = null;
+            openConnections.decrementAndGet();
+        }
+    }
+
+    private record Outgoing(MimeMessage message, long queuedAt, CompletableFuture<Void> result) {
+        Outgoing(MimeMessage message, long queuedAt) {
+            this(message, queuedAt, new CompletableFuture<>());
+        }
+    }
+}
@@ -1,52 +1,211 @@
 package com.safix.checkout.service;
 
-import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.safix.checkout.model.Registration;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Receipt PDFs. The page with the header, labels and footer is built once at startup and parsed once per thread;
+ * each receipt copies that parsed page and writes only the registration's values at fixed positions. Font
+ * programs are parsed once and shared; each document only wraps them in its own {@link PdfFont}, as iText
+ * requires.
+ */
 @Service
 public class PdfService {
-    
+
+    private static final Logger LOG = LoggerFactory.getLogger(PdfService.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final String RUPEE = "₹";
+
+    private static final float LEFT = 72;
+    private static final float VALUE_X = 180;
+    private static final float RIGHT = 523;
+    private static final float FIRST_ROW_Y = 680;
+    private static final float ROW_HEIGHT = 22;
+    private static final float BODY_SIZE = 12;
+    private static final String[] LABELS = {"Receipt ID:", "Name:", "Email:", "WhatsApp:", "Course:", "Date:"};
+    private static final float AMOUNT_Y = FIRST_ROW_Y - LABELS.length * ROW_HEIGHT - 20;
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    @Value("${upi.course.amount:4999}")
+    private String defaultAmount;
+
+    // Optional TrueType/OpenType fonts to embed (e.g. one with the rupee sign); blank uses Helvetica.
+    @Value("${receipts.pdf.font-path:}")
+    private String fontPath;
+
+    @Value("${receipts.pdf.bold-font-path:}")
+    private String boldFontPath;
+
+    private FontProgram regular;
+    private FontProgram bold;
+    private boolean embedded;
+    private byte[] template;
+    // A PdfDocument is not thread-safe, so each rendering thread keeps its own parsed copy of the template
+    private final ThreadLocal<PdfDocument> parsedTemplate = ThreadLocal.withInitial(this::parseTemplate);
+
+    @PostConstruct
+    public void init() throws IOException {
+        embedded = !fontPath.isBlank();
+        regular = embedded ? FontProgramFactory.createFont(Files.readAllBytes(Path.of(fontPath)))
+                : FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        bold = !boldFontPath.isBlank() ? FontProgramFactory.createFont(Files.readAllBytes(Path.of(boldFontPath)))
+                : embedded ? regular : FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        template = buildTemplate();
+    }
+
     public byte[] generateReceipt(Registration reg) {
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PdfWriter writer = new PdfWriter(baos);
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-            
-            // Header
-            Paragraph header = new Paragraph("UNIVERSAL SKILL DEVELOPMENT CENTRE")
-                .setFontSize(24)
-                .setBold()
-                .setTextAlignment(TextAlignment.CENTER);
-            document.add(header);
-            
-            document.add(new Paragraph("PAYMENT RECEIPT").setFontSize(16).setTextAlignment(TextAlignment.CENTER));
-            document.add(new Paragraph("\n"));
-            
-            // Details
-            document.add(new Paragraph("Receipt ID: " + reg.getId()));
-            document.add(new Paragraph("Name: " + reg.getName()));
-            document.add(new Paragraph("Email: " + reg.getEmail()));
-            document.add(new Paragraph("WhatsApp: " + reg.getWhatsapp()));
-            document.add(new Paragraph("Date: " + reg.getRegisteredAt().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"))));
-            document.add(new Paragraph("\n"));
-            document.add(new Paragraph("Amount Paid: ₹4999").setBold());
-            document.add(new Paragraph("\n"));
-            document.add(new Paragraph("Thank you for your purchase!").setTextAlignment(TextAlignment.CENTER));
-            
-            document.close();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(template.length + 4096);
+            PdfDocument pdf = new PdfDocument(new PdfWriter(baos));
+            parsedTemplate.get().copyPagesTo(1, 1, pdf);
+            PdfFont font = font(regular);
+            PdfFont boldFont = font(bold);
+            PdfCanvas canvas = new PdfCanvas(pdf.getFirstPage());
+
+            String[] values = {
+                    String.valueOf(reg.getId()),
+                    reg.getName(),
+                    reg.getEmail(),
+                    reg.getWhatsapp(),
+                    reg.getSelectedCourse(),
+                    reg.getRegisteredAt() != null ? reg.getRegisteredAt().format(DATE_FORMAT) : ""
+            };
+            for (int i = 0; i < values.length; i++) {
+                text(canvas, font, BODY_SIZE, VALUE_X, FIRST_ROW_Y - i * ROW_HEIGHT,
+                        fit(values[i], font, BODY_SIZE, RIGHT - VALUE_X));
+            }
+            text(canvas, boldFont, BODY_SIZE, VALUE_X, AMOUNT_Y,
+                    fit(amount(reg, boldFont), boldFont, BODY_SIZE, RIGHT - VALUE_X));
+            canvas.release();
+
+            pdf.close();
             return baos.toByteArray();
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.error("Could not generate the receipt for registration {}", reg.getId(), e);
             return new byte[0];
         }
     }
+
+    /**
+     * The static page: header, labels and footer, with the fonts embedded (or referenced) once.
+     */
+    private byte[] buildTemplate() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(baos));
+        PdfFont font = font(regular);
+        PdfFont boldFont = font(bold);
+        PdfCanvas canvas = new PdfCanvas(pdf.addNewPage(PageSize.A4));
+        float width = PageSize.A4.getWidth();
+
+        centered(canvas, boldFont, 24, width, 770, "UNIVERSAL SKILL DEVELOPMENT CENTRE");
+        centered(canvas, font, 16, width, 740, "PAYMENT RECEIPT");
+        for (int i = 0; i < LABELS.length; i++) {
+            text(canvas, font, BODY_SIZE, LEFT, FIRST_ROW_Y - i * ROW_HEIGHT, LABELS[i]);
+        }
+        text(canvas, boldFont, BODY_SIZE, LEFT, AMOUNT_Y, "Amount Paid:");
+        centered(canvas, font, BODY_SIZE, width, AMOUNT_Y - 48, "Thank you for your purchase!");
+        canvas.release();
+
+        pdf.close();
+        return baos.toByteArray();
+    }
+
+    private PdfDocument parseTemplate() {
+        try {
+            return new PdfDocument(new PdfReader(new ByteArrayInputStream(template)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void centered(PdfCanvas canvas, PdfFont font, float size, float pageWidth, float y, String s) {
+        text(canvas, font, size, (pageWidth - font.getWidth(s, size)) / 2, y, s);
+    }
+
+    private static void text(PdfCanvas canvas, PdfFont font, float size, float x, float y, String s) {
+        canvas.beginText().setFontAndSize(font, size).moveText(x, y).showText(s).endText();
+    }
+
+    private PdfFont font(FontProgram program) {
+        // Subset-embed supplied fonts; the standard 14 are referenced by name.
+        return embedded
+                ? PdfFontFactory.createFont(program, PdfEncodings.IDENTITY_H, PdfFontFactory.EmbeddingStrategy.FORCE_EMBEDDED)
+                : PdfFontFactory.createFont(program, PdfEncodings.WINANSI);
+    }
+
+    /**
+     * The course fee from the catalog: by exact course name, then by course id, then by the closest course name,
+     * then {@code upi.course.amount}. The name comes first because a registration held across a catalog reload
+     * keeps the id it was read with.
+     */
+    private String amount(Registration reg, PdfFont font) {
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        String fee = null;
+        int courseId = catalog.exactCourseId(reg.getSelectedCourse());
+        if (courseId < 0 && reg.getCourseId() != null && catalog.hasCourse(reg.getCourseId())) {
+            courseId = reg.getCourseId();
+        }
+        if (courseId >= 0) {
+            fee = catalog.getFee(courseId);
+        } else if (reg.getSelectedCourse() != null && !reg.getSelectedCourse().isBlank()) {
+            fee = catalog.getFeeByCourse(reg.getSelectedCourse());
+        }
+        if (fee == null || fee.isBlank()) {
+            fee = defaultAmount;
+        }
+        // Helvetica has no rupee sign
+        return (font.containsGlyph(RUPEE.codePointAt(0)) ? RUPEE : "INR ") + fee;
+    }
+
+    /**
+     * {@code text} with characters the font cannot show replaced by '?', cut with "..." to fit {@code maxWidth}.
+     */
+    private static String fit(String text, PdfFont font, float size, float maxWidth) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder shown = new StringBuilder(text.length());
+        text.codePoints().forEach(cp -> {
+            if (font.containsGlyph(cp)) {
+                shown.appendCodePoint(cp);
+            } else if (!Character.isISOControl(cp)) {
+                shown.append('?');
+            }
+        });
+        if (font.getWidth(shown.toString(), size) <= maxWidth) {
+            return shown.toString();
+        }
+        float ellipsis = font.getWidth("...", size);
+        while (shown.length() > 0 && font.getWidth(shown.toString(), size) + ellipsis > maxWidth) {
+            shown.setLength(shown.offsetByCodePoints(shown.length(), -1));
+        }
+        return shown.append("...").toString();
+    }
 }
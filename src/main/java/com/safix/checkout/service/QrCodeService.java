@@ -0,0 +1,169 @@
+package com.safix.checkout.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.safix.checkout.model.Course;
+import com.safix.checkout.model.QrImage;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * UPI payment QR codes. The PNG for every catalog course at its fee is encoded up front, and again for courses
+ * whose payment URL changes when a new catalog is published; any other course/amount pair, or a non-default
+ * format, size or error-correction level, is encoded once and kept in an LRU. Serving a code is then a lookup,
+ * not an encode. Encoding goes through {@link QrRenderer}.
+ */
+@Service
+public class QrCodeService {
+
+    public static final String PNG = "png";
+    public static final String SVG = "svg";
+    public static final int DEFAULT_SIZE = 300;
+    public static final int MIN_SIZE = 64;
+    public static final int MAX_SIZE = 1024;
+    // ZXing's defaults, which the codes have always used
+    public static final ErrorCorrectionLevel DEFAULT_ECC = ErrorCorrectionLevel.L;
+    private static final int QUIET_ZONE_MODULES = 4;
+
+    @Value("${upi.merchant.id}")
+    private String upiId;
+
+    @Value("${upi.merchant.name}")
+    private String merchantName;
+
+    @Value("${upi.course.amount}")
+    private String defaultAmount;
+
+    @Value("${qr.cache.entries:256}")
+    private int cacheEntries;
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    private volatile CourseCodes courseCodes = new CourseCodes(new QrImage[0], new String[0], new String[0], new String[0], Map.of());
+    private LruCache<QrKey, QrImage> otherCodes;
+
+    @PostConstruct
+    public void init() {
+        otherCodes = new LruCache<>(cacheEntries);
+        precompute(syllabusService.getCatalog());
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        precompute(event.catalog());
+    }
+
+    public QrImage qrFor(Integer courseId, String course, String amount) {
+        return qrFor(courseId, course, amount, PNG, DEFAULT_SIZE, DEFAULT_ECC);
+    }
+
+    /**
+     * The code for {@code courseId} when given (and {@code amount} is blank or its fee), otherwise for
+     * {@code course} and {@code amount}, defaulting to "Elite Course" and {@code upi.course.amount}. A valid
+     * {@code courseId} always names the course in the payment note, whatever the amount.
+     * {@code format} is {@link #PNG} or {@link #SVG}; {@code size} is in pixels.
+     */
+    public QrImage qrFor(Integer courseId, String course, String amount, String format, int size, ErrorCorrectionLevel ecc) {
+        CourseCodes codes = courseCodes;
+        boolean defaults = format.equals(PNG) && size == DEFAULT_SIZE && ecc == DEFAULT_ECC;
+        boolean noAmount = amount == null || amount.isBlank();
+        boolean knownCourse = courseId != null && courseId >= 0 && courseId < codes.images().length;
+        String payload;
+        if (knownCourse && (noAmount || amount.equals(codes.fees()[courseId]))) {
+            if (defaults) {
+                return codes.images()[courseId];
+            }
+            payload = codes.payloads()[courseId];
+        } else {
+            String resolvedCourse = knownCourse ? codes.names()[courseId]
+                    : (course == null || course.isBlank()) ? "Elite Course" : course;
+            payload = upiUrl(resolvedCourse, noAmount ? defaultAmount : amount);
+            QrImage image = defaults ? codes.byPayload().get(payload) : null;
+            if (image != null) {
+                return image;
+            }
+        }
+        return otherCodes.computeIfAbsent(new QrKey(payload, format, size, ecc), this::render);
+    }
+
+    /**
+     * Encodes every course's code for {@code catalog}, reusing images whose payment URL has not changed.
+     */
+    private synchronized void precompute(SyllabusCatalog catalog) {
+        Map<String, QrImage> previous = courseCodes.byPayload();
+        QrImage[] images = new QrImage[catalog.getCourseCount()];
+        String[] payloads = new String[images.length];
+        String[] fees = new String[images.length];
+        String[] names = new String[images.length];
+        Map<String, QrImage> byPayload = new HashMap<>();
+        for (Course course : catalog.getCourses()) {
+            String payload = upiUrl(course.name(), course.fee());
+            QrImage image = previous.get(payload);
+            if (image == null) {
+                image = render(new QrKey(payload, PNG, DEFAULT_SIZE, DEFAULT_ECC));
+            }
+            images[course.id()] = image;
+            payloads[course.id()] = payload;
+            fees[course.id()] = course.fee();
+            names[course.id()] = course.name();
+            byPayload.put(payload, image);
+        }
+        courseCodes = new CourseCodes(images, payloads, fees, names, byPayload);
+    }
+
+    private QrImage render(QrKey key) {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, key.ecc());
+        hints.put(EncodeHintType.MARGIN, QUIET_ZONE_MODULES);
+        try {
+            // Width 0: one pixel per module; QrRenderer does the scaling.
+            BitMatrix modules = new QRCodeWriter().encode(key.payload(), BarcodeFormat.QR_CODE, 0, 0, hints);
+            byte[] content = key.format().equals(SVG) ? QrRenderer.svg(modules, key.size()) : QrRenderer.png(modules, key.size());
+            return new QrImage(content, etag(content));
+        } catch (WriterException ex) {
+            throw new IllegalArgumentException("Cannot encode QR payload", ex);
+        }
+    }
+
+    private static String etag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String upiUrl(String course, String amount) {
+        return String.format("upi://pay?pa=%s&pn=%s&am=%s&cu=INR&tn=%s",
+                encode(upiId), encode(merchantName), encode(amount), encode(course + " Payment"));
+    }
+
+    private String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private record CourseCodes(QrImage[] images, String[] payloads, String[] fees, String[] names,
+                               Map<String, QrImage> byPayload) {
+    }
+
+    private record QrKey(String payload, String format, int size, ErrorCorrectionLevel ecc) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.safix.checkout.service;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a QR {@link BitMatrix} with one pixel per module (quiet zone included) straight to PNG or SVG, without
+ * a {@code BufferedImage} or ImageIO.
+ *
+ * <p>The PNG is 1-bit greyscale. Each module row is packed once into a reusable row buffer and handed to the
+ * deflater {@code scale} times; the {@link Deflater}, row buffer and compressed-data buffer are kept per thread.
+ * The SVG draws one {@code h}-segment per horizontal run of dark modules.
+ */
+final class QrRenderer {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private QrRenderer() {
+    }
+
+    /**
+     * A PNG at least {@code size} pixels square: modules are scaled by a whole number and the remainder is added
+     * to the white border, as ZXing does.
+     */
+    static byte[] png(BitMatrix modules, int size) {
+        int modulesWide = modules.getWidth();
+        int scale = Math.max(1, size / modulesWide);
+        int width = Math.max(size, modulesWide * scale);
+        int offset = (width - modulesWide * scale) / 2;
+        int rowBytes = 1 + (width + 7) / 8;
+
+        Buffers buffers = BUFFERS.get();
+        byte[] row = buffers.row(rowBytes);
+        byte[] white = buffers.white(rowBytes);
+        Deflater deflater = buffers.deflater;
+        deflater.reset();
+        buffers.compressedLength = 0;
+
+        for (int y = 0; y < offset; y++) {
+            deflate(buffers, white, rowBytes);
+        }
+        for (int moduleY = 0; moduleY < modulesWide; moduleY++) {
+            packRow(modules, moduleY, scale, offset, row, rowBytes);
+            for (int repeat = 0; repeat < scale; repeat++) {
+                deflate(buffers, row, rowBytes);
+            }
+        }
+        for (int y = offset + modulesWide * scale; y < width; y++) {
+            deflate(buffers, white, rowBytes);
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(buffers);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(buffers.compressedLength + 64);
+        out.writeBytes(PNG_SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, width);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // greyscale
+        chunk(out, IHDR, header, header.length);
+        chunk(out, IDAT, buffers.compressed, buffers.compressedLength);
+        chunk(out, IEND, header, 0);
+        return out.toByteArray();
+    }
+
+    /**
+     * An SVG drawing {@code size} pixels square, in module units.
+     */
+    static byte[] svg(BitMatrix modules, int size) {
+        int modulesWide = modules.getWidth();
+        StringBuilder svg = new StringBuilder(modulesWide * modulesWide / 2 + 256);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size).append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(modulesWide).append(' ').append(modulesWide)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path d=\"");
+        for (int y = 0; y < modulesWide; y++) {
+            int x = 0;
+            while (x < modulesWide) {
+                if (!modules.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < modulesWide && modules.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(start).append(' ').append(y).append('h').append(x - start).append("v1h-")
+                        .append(x - start).append('z');
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Packs one module row into {@code row}: filter byte 0, then 1 bit per pixel, 1 = white.
+     */
+    private static void packRow(BitMatrix modules, int moduleY, int scale, int offset, byte[] row, int rowBytes) {
+        Arrays.fill(row, 1, rowBytes, (byte) 0xFF);
+        row[0] = 0;
+        int pixel = offset;
+        for (int x = 0; x < modules.getWidth(); x++) {
+            if (modules.get(x, moduleY)) {
+                for (int i = 0; i < scale; i++, pixel++) {
+                    row[1 + (pixel >> 3)] &= (byte) ~(0x80 >>> (pixel & 7));
+                }
+            } else {
+                pixel += scale;
+            }
+        }
+    }
+
+    private static void deflate(Buffers buffers, byte[] row, int length) {
+        buffers.deflater.setInput(row, 0, length);
+        while (!buffers.deflater.needsInput()) {
+            drain(buffers);
+        }
+    }
+
+    private static void drain(Buffers buffers) {
+        if (buffers.compressedLength == buffers.compressed.length) {
+            buffers.compressed = Arrays.copyOf(buffers.compressed, buffers.compressed.length * 2);
+        }
+        buffers.compressedLength += buffers.deflater.deflate(buffers.compressed, buffers.compressedLength,
+                buffers.compressed.length - buffers.compressedLength);
+    }
+
+    private static void chunk(ByteArrayOutputStream out, byte[] type, byte[] data, int length) {
+        byte[] word = new byte[4];
+        writeInt(word, 0, length);
+        out.writeBytes(word);
+        out.writeBytes(type);
+        out.write(data, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data, 0, length);
+        writeInt(word, 0, (int) crc.getValue());
+        out.writeBytes(word);
+    }
+
+    private static void writeInt(byte[] target, int at, int value) {
+        target[at] = (byte) (value >>> 24);
+        target[at + 1] = (byte) (value >>> 16);
+        target[at + 2] = (byte) (value >>> 8);
+        target[at + 3] = (byte) value;
+    }
+
+    private static final class Buffers {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        byte[] compressed = new byte[4096];
+        int compressedLength;
+        private byte[] row = new byte[0];
+        private byte[] white = new byte[0];
+
+        byte[] row(int length) {
+            if (row.length < length) {
+                row = new byte[length];
+            }
+            return row;
+        }
+
+        byte[] white(int length) {
+            if (white.length < length) {
+                white = new byte[length];
+                Arrays.fill(white, (byte) 0xFF);
+                white[0] = 0;
+            }
+            return white;
+        }
+    }
+}
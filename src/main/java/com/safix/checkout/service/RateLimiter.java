@@ -0,0 +1,101 @@
+package com.safix.checkout.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of {@code burst} permits refilled at {@code permitsPerMinute}, kept as a single "theoretical
+ * arrival time" (the GCRA formulation) in an {@link AtomicLong}. Taking a permit is one compare-and-set; nothing
+ * locks and nothing sleeps here. A caller either gets a permit now, reserves one for a known point in the future,
+ * or is refused because that point is past its deadline.
+ */
+public final class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+
+    public RateLimiter(double permitsPerMinute, int burst) {
+        if (permitsPerMinute <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerMinute must be > 0 and burst >= 1");
+        }
+        this.intervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / permitsPerMinute);
+        this.burstToleranceNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Reserves one permit if it becomes available within {@code maxWait}. Returns how long to wait before using
+     * it ({@code 0} for now), or {@code -1} without reserving anything when the wait would exceed {@code maxWait}.
+     */
+    public long reserve(long maxWaitNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long wait = Math.max(0, tat - burstToleranceNanos - now);
+            if (wait > maxWaitNanos) {
+                refused.incrementAndGet();
+                return -1;
+            }
+            if (theoreticalArrival.compareAndSet(tat, Math.max(tat, now) + intervalNanos)) {
+                granted.incrementAndGet();
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Gives back a permit taken with {@link #reserve} that will not be used, for example because a second limiter
+     * refused the same request.
+     */
+    public void release() {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            if (theoreticalArrival.compareAndSet(tat, Math.max(System.nanoTime(), tat - intervalNanos))) {
+                granted.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * Nanoseconds until a permit would be free, without taking one.
+     */
+    public long peekWaitNanos() {
+        return Math.max(0, theoreticalArrival.get() - burstToleranceNanos - System.nanoTime());
+    }
+
+    /**
+     * Completes with {@code true} on {@code scheduler} once a permit is available, or immediately with
+     * {@code false} when that would take longer than {@code maxWait}. No thread waits in between.
+     */
+    public CompletableFuture<Boolean> acquireAsync(Duration maxWait, ScheduledExecutorService scheduler) {
+        long wait = reserve(maxWait.toNanos());
+        if (wait < 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+        CompletableFuture<Boolean> acquired = new CompletableFuture<>();
+        scheduler.schedule(() -> acquired.complete(true), wait, TimeUnit.NANOSECONDS);
+        return acquired;
+    }
+
+    public long getGranted() {
+        return granted.get();
+    }
+
+    public long getRefused() {
+        return refused.get();
+    }
+}
@@ -0,0 +1,362 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.ReceiptExport;
+import com.safix.checkout.model.ReceiptExportState;
+import com.safix.checkout.model.Registration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Regenerates receipts for a range of registrations and writes them into a ZIP, either straight to an HTTP
+ * response or to a file under {@code receipts.export.dir} for later download.
+ *
+ * <p>Receipts are rendered on a shared bounded pool ({@code receipts.export.threads}). Each export keeps at most
+ * {@code receipts.export.window} receipts in flight and writes them to the ZIP in journal order as they complete,
+ * so memory use does not grow with the size of the range. Exports can be cancelled; a cancelled file export
+ * deletes its partial file.
+ */
+@Service
+public class ReceiptExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReceiptExportService.class);
+
+    private static final int KEPT_EXPORTS = 50;
+
+    @Value("${receipts.export.threads:4}")
+    private int threads;
+
+    @Value("${receipts.export.window:16}")
+    private int window;
+
+    @Value("${receipts.export.max-running:2}")
+    private int maxRunning;
+
+    @Value("${receipts.export.dir:data/exports}")
+    private String exportDir;
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private RegistrationJournal journal;
+
+    // Insertion order, so the oldest finished exports are forgotten first
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private ThreadPoolExecutor renderPool;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        renderPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxRunning * window)), runnable -> {
+                    Thread thread = new Thread(runnable, "receipt-export-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (jobs) {
+            jobs.values().forEach(job -> job.cancelled = true);
+        }
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Starts an export into a ZIP file in the background and returns its initial progress.
+     *
+     * @throws IllegalStateException when {@code receipts.export.max-running} exports are already running
+     */
+    public ReceiptExport startFileExport(LocalDate from, LocalDate to, Integer courseId) throws IOException {
+        Path dir = Path.of(exportDir);
+        Files.createDirectories(dir);
+        Job job = register(from, to, courseId, true);
+        job.file = dir.resolve("receipts-" + job.id + ".zip");
+        Thread thread = new Thread(() -> {
+            try (OutputStream out = Files.newOutputStream(job.file)) {
+                run(job, out);
+            } catch (IOException e) {
+                // run() has already recorded the failure
+            }
+            if (job.state != ReceiptExportState.COMPLETED) {
+                deleteQuietly(job.file);
+            }
+        }, "receipt-export-" + job.id);
+        thread.setDaemon(true);
+        thread.start();
+        return job.snapshot();
+    }
+
+    /**
+     * Registers an export that the caller will stream with {@link #streamExport}; the id can be used to follow
+     * or cancel it while it runs.
+     *
+     * @throws IllegalStateException when {@code receipts.export.max-running} exports are already running
+     */
+    public String beginStreamExport(LocalDate from, LocalDate to, Integer courseId) {
+        return register(from, to, courseId, false).id;
+    }
+
+    /**
+     * Writes the ZIP for an export started with {@link #beginStreamExport} to {@code out}, on the calling thread.
+     */
+    public void streamExport(String id, OutputStream out) throws IOException {
+        Job job = job(id);
+        if (job == null || job.toFile) {
+            throw new IllegalArgumentException("Unknown export " + id);
+        }
+        run(job, out);
+    }
+
+    public ReceiptExport getExport(String id) {
+        Job job = job(id);
+        return job != null ? job.snapshot() : null;
+    }
+
+    public List<ReceiptExport> getExports() {
+        List<ReceiptExport> exports = new ArrayList<>();
+        synchronized (jobs) {
+            jobs.values().forEach(job -> exports.add(job.snapshot()));
+        }
+        return exports;
+    }
+
+    /**
+     * Asks a running export to stop after the receipt it is writing. Returns false for an unknown export.
+     */
+    public boolean cancel(String id) {
+        Job job = job(id);
+        if (job == null) {
+            return false;
+        }
+        job.cancelled = true;
+        return true;
+    }
+
+    /**
+     * The ZIP of a completed file export, or {@code null}.
+     */
+    public Path getFile(String id) {
+        Job job = job(id);
+        return job != null && job.toFile && job.state == ReceiptExportState.COMPLETED ? job.file : null;
+    }
+
+    /**
+     * Cancels the export if it is still running, deletes its file and forgets it.
+     */
+    public boolean delete(String id) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.remove(id);
+        }
+        if (job == null) {
+            return false;
+        }
+        job.cancelled = true;
+        if (job.file != null && job.state != ReceiptExportState.RUNNING) {
+            deleteQuietly(job.file);
+        }
+        return true;
+    }
+
+    private Job register(LocalDate from, LocalDate to, Integer courseId, boolean toFile) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        synchronized (jobs) {
+            long running = jobs.values().stream().filter(job -> job.state == ReceiptExportState.RUNNING).count();
+            if (running >= maxRunning) {
+                throw new IllegalStateException("Already running " + running + " receipt exports");
+            }
+            Iterator<Job> oldest = jobs.values().iterator();
+            while (jobs.size() >= KEPT_EXPORTS && oldest.hasNext()) {
+                Job old = oldest.next();
+                if (old.state != ReceiptExportState.RUNNING) {
+                    oldest.remove();
+                    if (old.file != null) {
+                        deleteQuietly(old.file);
+                    }
+                }
+            }
+            Job job = new Job(UUID.randomUUID().toString(), from, to, courseId, toFile);
+            jobs.put(job.id, job);
+            return job;
+        }
+    }
+
+    private Job job(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    private void run(Job job, OutputStream out) throws IOException {
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        try {
+            List<Registration> registrations = new ArrayList<>();
+            journal.forEach(reg -> {
+                if (RegistrationService.matches(reg, job.from, job.to, job.courseId)) {
+                    registrations.add(reg);
+                }
+            });
+            job.total = registrations.size();
+
+            CountingOutputStream counted = new CountingOutputStream(new BufferedOutputStream(out, 64 * 1024), job.zipBytes);
+            ZipOutputStream zip = new ZipOutputStream(counted);
+            // PDF content is already compressed
+            zip.setLevel(Deflater.BEST_SPEED);
+            List<Long> failures = new ArrayList<>();
+            int next = 0;
+            while (next < registrations.size() && inFlight.size() < window) {
+                inFlight.add(render(registrations.get(next++)));
+            }
+            for (Registration reg : registrations) {
+                if (job.cancelled) {
+                    break;
+                }
+                byte[] pdf = await(inFlight.poll());
+                if (next < registrations.size()) {
+                    inFlight.add(render(registrations.get(next++)));
+                }
+                if (pdf == null || pdf.length == 0) {
+                    failures.add(reg.getId());
+                    job.failed.incrementAndGet();
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry("receipt-" + reg.getId() + ".pdf"));
+                zip.write(pdf);
+                zip.closeEntry();
+                job.pdfBytes.addAndGet(pdf.length);
+                job.rendered.incrementAndGet();
+            }
+            if (!failures.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("failures.txt"));
+                StringBuilder text = new StringBuilder("Receipts that could not be rendered:\n");
+                failures.forEach(id -> text.append(id).append('\n'));
+                zip.write(text.toString().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            counted.flush();
+            job.finish(job.cancelled ? ReceiptExportState.CANCELLED : ReceiptExportState.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            // Typically the client went away mid-download
+            job.finish(job.cancelled ? ReceiptExportState.CANCELLED : ReceiptExportState.FAILED, e.toString());
+            throw e;
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private Future<byte[]> render(Registration reg) {
+        return renderPool.submit(() -> pdfService.generateReceipt(reg));
+    }
+
+    /**
+     * The rendered PDF, or {@code null} when rendering failed.
+     */
+    private static byte[] await(Future<byte[]> future) throws InterruptedIOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering receipts");
+        } catch (ExecutionException | CancellationException e) {
+            LOG.warn("Could not render a receipt for the export", e);
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Could not delete {}", file, e);
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final LocalDate from;
+        final LocalDate to;
+        final Integer courseId;
+        final boolean toFile;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startedNanos = System.nanoTime();
+        final AtomicInteger rendered = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicLong pdfBytes = new AtomicLong();
+        final AtomicLong zipBytes = new AtomicLong();
+        volatile Path file;
+        volatile int total;
+        volatile boolean cancelled;
+        volatile ReceiptExportState state = ReceiptExportState.RUNNING;
+        volatile LocalDateTime finishedAt;
+        volatile long finishedNanos;
+        volatile String error;
+
+        Job(String id, LocalDate from, LocalDate to, Integer courseId, boolean toFile) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+            this.courseId = courseId;
+            this.toFile = toFile;
+        }
+
+        void finish(ReceiptExportState finalState, String finalError) {
+            finishedNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            error = finalError;
+            state = finalState;
+        }
+
+        ReceiptExport snapshot() {
+            long end = state == ReceiptExportState.RUNNING ? System.nanoTime() : finishedNanos;
+            double seconds = (end - startedNanos) / 1e9;
+            int done = rendered.get() + failed.get();
+            return new ReceiptExport(id, state, toFile, from, to, courseId, total, rendered.get(), failed.get(),
+                    pdfBytes.get(), zipBytes.get(), seconds > 0 ? done / seconds : 0, startedAt, finishedAt, error);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong count;
+
+        CountingOutputStream(OutputStream out, AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+    }
+}
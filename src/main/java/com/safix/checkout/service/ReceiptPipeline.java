@@ -0,0 +1,281 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.ReceiptPipelineStats;
+import com.safix.checkout.model.ReceiptState;
+import com.safix.checkout.model.ReceiptStatus;
+import com.safix.checkout.model.Registration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders and emails receipts after a registration has been journaled, off the request thread.
+ *
+ * <p>A registration moves through two stages, each on its own bounded pool: PDF rendering, then building the email
+ * and handing it to the {@link MailDispatcher}, which sends it over a pooled SMTP connection.
+ * A failed stage is retried with exponential backoff up to {@code receipts.max-attempts} times; the final
+ * outcome ("YES" or "FAILED") is written to the journal. Registrations still "PENDING" in the journal at startup,
+ * i.e. accepted but not finished before a shutdown, are queued again; rows imported from the legacy workbook are
+ * marked {@value #LEGACY} and never are.
+ */
+@Service
+public class ReceiptPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReceiptPipeline.class);
+
+    public static final String PENDING = "PENDING";
+    public static final String SENT = "YES";
+    public static final String FAILED = "FAILED";
+    // Imported from registrations.xlsx; the old code never recorded whether those receipts went out
+    public static final String LEGACY = "LEGACY";
+
+    @Value("${receipts.pdf-threads:2}")
+    private int pdfThreads;
+
+    @Value("${receipts.email-threads:2}")
+    private int emailThreads;
+
+    @Value("${receipts.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${receipts.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${receipts.retry-base-ms:2000}")
+    private long retryBaseMillis;
+
+    @Value("${receipts.retry-max-ms:300000}")
+    private long retryMaxMillis;
+
+    @Value("${receipts.status-entries:10000}")
+    private int statusEntries;
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private RegistrationJournal journal;
+
+    private final LatencyRecorder pdfLatency = new LatencyRecorder();
+    private final LatencyRecorder emailLatency = new LatencyRecorder();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    private LruCache<Long, ReceiptStatus> statuses;
+    private ThreadPoolExecutor pdfPool;
+    private ThreadPoolExecutor emailPool;
+    private ScheduledThreadPoolExecutor retryScheduler;
+
+    @PostConstruct
+    public void start() {
+        statuses = new LruCache<>(statusEntries);
+        pdfPool = newPool("receipt-pdf", pdfThreads);
+        emailPool = newPool("receipt-email", emailThreads);
+        retryScheduler = new ScheduledThreadPoolExecutor(1, daemonThreads("receipt-retry"));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Anything unfinished stays PENDING in the journal and is resumed on the next start.
+        retryScheduler.shutdownNow();
+        pdfPool.shutdown();
+        emailPool.shutdown();
+        pdfPool.awaitTermination(10, TimeUnit.SECONDS);
+        emailPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        try {
+            journal.forEach(reg -> {
+                if (PENDING.equals(reg.getReceiptSent())) {
+                    submit(reg);
+                }
+            });
+        } catch (IOException e) {
+            LOG.error("Could not read the journal to resume pending receipts", e);
+        }
+    }
+
+    /**
+     * Queues the receipt for a journaled registration and returns immediately.
+     */
+    public void submit(Registration reg) {
+        Job job = new Job(reg);
+        update(job, ReceiptState.QUEUED, null);
+        execute(pdfPool, () -> render(job));
+    }
+
+    /**
+     * Latest known status. Falls back to the outcome in the journal for a registration this process has not
+     * seen since it started, or has forgotten; {@code null} when neither knows it.
+     */
+    public ReceiptStatus getStatus(long registrationId) {
+        ReceiptStatus status = statuses.get(registrationId);
+        if (status != null) {
+            return status;
+        }
+        String receiptSent = journal.getReceiptStatus(registrationId);
+        if (SENT.equals(receiptSent)) {
+            return new ReceiptStatus(registrationId, ReceiptState.SENT, 0, null, null);
+        }
+        if (FAILED.equals(receiptSent)) {
+            return new ReceiptStatus(registrationId, ReceiptState.FAILED, 0, null, null);
+        }
+        return null;
+    }
+
+    public ReceiptPipelineStats getStats() {
+        return new ReceiptPipelineStats(
+                pdfPool.getQueue().size(),
+                emailPool.getQueue().size(),
+                retryScheduler.getQueue().size(),
+                sent.get(),
+                failed.get(),
+                retried.get(),
+                pdfLatency.snapshot(),
+                emailLatency.snapshot()
+        );
+    }
+
+    private void render(Job job) {
+        update(job, ReceiptState.RENDERING_PDF, job.lastError);
+        long started = System.nanoTime();
+        byte[] pdf = null;
+        String error = "PDF receipt could not be generated";
+        try {
+            pdf = pdfService.generateReceipt(job.reg);
+        } catch (RuntimeException e) {
+            error = e.toString();
+        } finally {
+            pdfLatency.record(System.nanoTime() - started);
+        }
+        if (pdf == null || pdf.length == 0) {
+            retryOrFail(job, error, () -> render(job), pdfPool);
+            return;
+        }
+        job.pdf = pdf;
+        update(job, ReceiptState.QUEUED, job.lastError);
+        execute(emailPool, () -> send(job));
+    }
+
+    private void send(Job job) {
+        update(job, ReceiptState.SENDING_EMAIL, job.lastError);
+        long started = System.nanoTime();
+        CompletableFuture<Void> delivery;
+        try {
+            delivery = emailService.sendReceipt(job.reg, job.pdf);
+        } catch (Exception e) {
+            emailLatency.record(System.nanoTime() - started);
+            retryOrFail(job, e.toString(), () -> send(job), emailPool);
+            return;
+        }
+        // The mail dispatcher delivers it over a pooled connection; the outcome is handled back on this pool,
+        // so the dispatcher's SMTP workers never wait on the journal.
+        delivery.whenComplete((ignored, error) -> execute(emailPool, () -> delivered(job, started, error)));
+    }
+
+    private void delivered(Job job, long started, Throwable error) {
+        emailLatency.record(System.nanoTime() - started);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            retryOrFail(job, cause.toString(), () -> send(job), emailPool);
+            return;
+        }
+        sent.incrementAndGet();
+        finish(job, ReceiptState.SENT, SENT);
+    }
+
+    private void retryOrFail(Job job, String error, Runnable stage, ThreadPoolExecutor pool) {
+        job.failures++;
+        job.lastError = error;
+        if (job.failures >= maxAttempts) {
+            failed.incrementAndGet();
+            finish(job, ReceiptState.FAILED, FAILED);
+            return;
+        }
+        long delay = Math.min(retryMaxMillis, retryBaseMillis << Math.min(job.failures - 1, 20));
+        delay += ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+        retried.incrementAndGet();
+        update(job, ReceiptState.RETRY_SCHEDULED, error);
+        schedule(() -> execute(pool, stage), delay);
+    }
+
+    private void finish(Job job, ReceiptState state, String receiptSent) {
+        job.reg.setReceiptSent(receiptSent);
+        job.pdf = null;
+        try {
+            journal.appendReceiptStatus(job.reg.getId(), receiptSent);
+        } catch (IOException e) {
+            LOG.error("Could not journal receipt status {} for registration {}", receiptSent, job.reg.getId(), e);
+        }
+        update(job, state, job.lastError);
+    }
+
+    /**
+     * Hands a stage to its pool; when the pool's queue is full the stage is retried later instead of blocking
+     * the caller, which may be a request thread.
+     */
+    private void execute(ThreadPoolExecutor pool, Runnable stage) {
+        try {
+            pool.execute(stage);
+        } catch (RejectedExecutionException e) {
+            if (!pool.isShutdown()) {
+                schedule(() -> execute(pool, stage), retryBaseMillis);
+            }
+        }
+    }
+
+    private void schedule(Runnable task, long delayMillis) {
+        try {
+            retryScheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the journal still says PENDING.
+        }
+    }
+
+    private void update(Job job, ReceiptState state, String error) {
+        statuses.put(job.reg.getId(), new ReceiptStatus(job.reg.getId(), state, job.failures, error, LocalDateTime.now()));
+    }
+
+    private ThreadPoolExecutor newPool(String name, int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads(name));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Job {
+        final Registration reg;
+        volatile byte[] pdf;
+        volatile int failures;
+        volatile String lastError;
+
+        Job(Registration reg) {
+            this.reg = reg;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.safix.checkout.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of length-prefixed, checksummed records.
+ *
+ * <pre>
+ * header:  int magic, int formatVersion
+ * record:  int payloadLength, int crc32c(payload), byte[payloadLength] payload
+ * </pre>
+ *
+ * Appends from any number of threads are handed to a single writer thread, which writes whatever has queued
+ * up and then fsyncs once for the whole batch (group commit). A caller's future completes only after its
+ * record is on disk. A batch that fails, for whatever reason, fails only its own callers; the writer carries on
+ * with the next one. On open, a torn or corrupt tail left by a crash is cut off at the last intact record.
+ */
+public final class RecordLog implements Closeable {
+
+    private static final int MAGIC = 0x52454331;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+    private static final int MAX_BATCH = 512;
+    private static final long APPEND_TIMEOUT_SECONDS = 30;
+    private static final Pending SHUTDOWN = new Pending(new byte[0], null);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final long recoveredBytes;
+
+    private volatile boolean closed;
+    private long position;
+
+    public RecordLog(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+            writeFully(header, 0);
+            channel.force(true);
+            position = HEADER_BYTES;
+            recoveredBytes = 0;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.read(header, 0) != HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                channel.close();
+                throw new IOException(file + " is not a record log (bad header)");
+            }
+            long end = scan(null);
+            recoveredBytes = channel.size() - end;
+            if (recoveredBytes > 0) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+            position = end;
+        }
+
+        writer = new Thread(this::writeLoop, "record-log-" + file.getFileName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record. The future completes with the record's file offset once it has been fsynced.
+     */
+    public CompletableFuture<Long> append(byte[] payload) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        if (payload.length > MAX_RECORD_BYTES) {
+            done.completeExceptionally(new IOException("Record of " + payload.length + " bytes exceeds limit"));
+            return done;
+        }
+        synchronized (queue) {
+            if (closed) {
+                done.completeExceptionally(new IOException("Record log " + file + " is closed"));
+                return done;
+            }
+            queue.add(new Pending(payload, done));
+        }
+        return done;
+    }
+
+    /**
+     * Appends a record and blocks until it is durable, or fails after {@value #APPEND_TIMEOUT_SECONDS} seconds.
+     * A timed-out record may still be written later.
+     */
+    public long appendAndWait(byte[] payload) throws IOException {
+        try {
+            return append(payload).get(APPEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while appending to " + file, ex);
+        } catch (TimeoutException ex) {
+            throw new IOException("Timed out after " + APPEND_TIMEOUT_SECONDS + "s appending to " + file, ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    /**
+     * Replays every durable record in append order. Records appended concurrently may or may not be seen.
+     */
+    public void forEach(RecordConsumer consumer) throws IOException {
+        scan(consumer);
+    }
+
+    /**
+     * Calls {@code consumer} for records at or after {@code fromOffset}; returns the offset after the last one.
+     */
+    public long readFrom(long fromOffset, RecordConsumer consumer) throws IOException {
+        return scan(Math.max(HEADER_BYTES, fromOffset), Integer.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Like {@link #readFrom(long, RecordConsumer)}, but stops after {@code maxRecords} records.
+     */
+    public long readFrom(long fromOffset, int maxRecords, RecordConsumer consumer) throws IOException {
+        return scan(Math.max(HEADER_BYTES, fromOffset), maxRecords, consumer);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getRecordsAppended() {
+        return records.get();
+    }
+
+    public long getBatchesWritten() {
+        return batches.get();
+    }
+
+    /**
+     * Bytes of torn or corrupt tail discarded when the log was opened.
+     */
+    public long getRecoveredBytes() {
+        return recoveredBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // No interrupt: interrupting a thread inside FileChannel I/O closes the channel under it.
+            queue.add(SHUTDOWN);
+        }
+        try {
+            writer.join(5000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            // Records accepted before close are still written; the marker only ends the loop.
+            stopping = batch.remove(SHUTDOWN);
+            if (stopping) {
+                queue.drainTo(batch);
+                batch.remove(SHUTDOWN);
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        long start = position;
+        long[] offsets = new long[batch.size()];
+        try {
+            int bytes = 0;
+            for (Pending pending : batch) {
+                bytes += RECORD_HEADER_BYTES + pending.payload().length;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(bytes);
+            CRC32C crc = new CRC32C();
+            for (int i = 0; i < batch.size(); i++) {
+                byte[] payload = batch.get(i).payload();
+                offsets[i] = start + buffer.position();
+                crc.reset();
+                crc.update(payload);
+                buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            }
+            buffer.flip();
+
+            writeFully(buffer, start);
+            channel.force(false);
+            position = start + bytes;
+        } catch (Throwable ex) {
+            // Not only IOExceptions: if this thread died, no append would ever complete again.
+            try {
+                // Drop the partial batch so the next one starts on a record boundary.
+                channel.truncate(start);
+            } catch (IOException | RuntimeException ignored) {
+                // Recovery on the next open cuts the tail instead.
+            }
+            for (Pending pending : batch) {
+                pending.done().completeExceptionally(ex);
+            }
+            return;
+        }
+        records.addAndGet(batch.size());
+        batches.incrementAndGet();
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).done().complete(offsets[i]);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long at) throws IOException {
+        long offset = at;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    private long scan(RecordConsumer consumer) throws IOException {
+        return scan(HEADER_BYTES, Integer.MAX_VALUE, consumer);
+    }
+
+    private long scan(long from, int maxRecords, RecordConsumer consumer) throws IOException {
+        long size = channel.size();
+        long offset = from;
+        int count = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        CRC32C crc = new CRC32C();
+        while (count < maxRecords && offset + RECORD_HEADER_BYTES <= size) {
+            header.clear();
+            if (readFully(header, offset) < RECORD_HEADER_BYTES) {
+                break;
+            }
+            int length = header.getInt(0);
+            int checksum = header.getInt(4);
+            if (length < 0 || length > MAX_RECORD_BYTES || offset + RECORD_HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            if (readFully(payload, offset + RECORD_HEADER_BYTES) < length) {
+                break;
+            }
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (consumer != null) {
+                consumer.accept(offset, payload.array());
+            }
+            offset += RECORD_HEADER_BYTES + length;
+            count++;
+        }
+        return offset;
+    }
+
+    private int readFully(ByteBuffer buffer, long at) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, at + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long offset, byte[] payload) throws IOException;
+    }
+
+    private record Pending(byte[] payload, CompletableFuture<Long> done) {
+    }
+}
@@ -0,0 +1,364 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.EnquiryRequest;
+import com.safix.checkout.model.Registration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Primary store for registrations: one {@link RecordLog} record per registration. Appends are durable when
+ * {@link #append} returns and cost the same however many registrations already exist. The same log also keeps
+ * receipt outcomes and a summary of each enquiry (the enquiry itself lives in Google Sheets).
+ *
+ * <p>Courses are recorded by key ({@link SyllabusCatalog#getCourseKey}), not by id: ids are positions in the
+ * catalog and shift when a course is inserted or removed. Records are read back with the course's current id.
+ *
+ * <p>The latest receipt outcome of each registration is also kept in memory, one byte per registration in a
+ * {@link LongByteMap}, so replaying registrations with their outcomes takes a single pass over the log.
+ */
+@Service
+public class RegistrationJournal {
+
+    private static final byte TYPE_REGISTRATION = 1;
+    private static final byte TYPE_RECEIPT_STATUS = 2;
+    private static final byte TYPE_ENQUIRY = 3;
+    private static final byte TYPE_MARKER = 4;
+    private static final byte CODEC_VERSION = 1;
+    // Registration and enquiry records that store the course key instead of the catalog id
+    private static final byte COURSE_KEY_VERSION = 2;
+    // Strings in a COURSE_KEY_VERSION registration record, before the optional import source and row
+    private static final int REGISTRATION_STRINGS = 8;
+    // Receipt outcomes by their code in receiptStatuses; 0 is "none recorded"
+    private static final String[] RECEIPT_STATUSES = {
+            null, ReceiptPipeline.PENDING, ReceiptPipeline.SENT, ReceiptPipeline.FAILED, ReceiptPipeline.LEGACY
+    };
+
+    @Value("${registration.journal.path:data/registrations.journal}")
+    private String journalPath;
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    private final LongByteMap receiptStatuses = new LongByteMap();
+    private RecordLog log;
+
+    @PostConstruct
+    public void open() throws IOException {
+        log = new RecordLog(Path.of(journalPath));
+        log.forEach((offset, payload) -> {
+            if (payload.length > 0 && payload[0] == TYPE_RECEIPT_STATUS) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 2, payload.length - 2));
+                long registrationId = in.readLong();
+                byte code = receiptStatusCode(readString(in));
+                if (code != 0) {
+                    receiptStatuses.put(registrationId, code);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        log.close();
+    }
+
+    public void append(Registration reg) throws IOException {
+        log.appendAndWait(encode(reg));
+    }
+
+    /**
+     * Queues a registration without waiting for the fsync; appends queued together share one.
+     */
+    public CompletableFuture<Long> appendAsync(Registration reg) throws IOException {
+        return log.append(encode(reg));
+    }
+
+    /**
+     * Queues a registration copied from row {@code row} of {@code source}. The position is stored with the record,
+     * so an interrupted import can tell which rows it already copied; the ids of imported rows need not be unique.
+     */
+    public CompletableFuture<Long> appendImported(Registration reg, String source, int row) throws IOException {
+        return log.append(encode(reg, source, row));
+    }
+
+    /**
+     * Rows of {@code source} already recorded by {@link #appendImported}.
+     */
+    public Set<Integer> importedRows(String source) throws IOException {
+        Set<Integer> rows = new HashSet<>();
+        log.forEach((offset, payload) -> {
+            if (payload.length > 1 && payload[0] == TYPE_REGISTRATION && payload[1] == COURSE_KEY_VERSION) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 2, payload.length - 2));
+                in.skipNBytes(Long.BYTES);
+                for (int i = 0; i < REGISTRATION_STRINGS; i++) {
+                    skipString(in);
+                }
+                if (in.available() > 0 && source.equals(readString(in))) {
+                    rows.add(in.readInt());
+                }
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Records the outcome of the receipt for a registration; later calls win. Returns once durable.
+     */
+    public void appendReceiptStatus(long registrationId, String receiptSent) throws IOException {
+        byte code = receiptStatusCode(receiptSent);
+        if (code == 0) {
+            throw new IllegalArgumentException("Unknown receipt status " + receiptSent);
+        }
+        log.appendAndWait(encodeReceiptStatus(registrationId, receiptSent));
+        receiptStatuses.put(registrationId, code);
+    }
+
+    /**
+     * Latest receipt outcome recorded for a registration, or {@code null} when none has been.
+     */
+    public String getReceiptStatus(long registrationId) {
+        return RECEIPT_STATUSES[receiptStatuses.get(registrationId)];
+    }
+
+    /**
+     * Queues the fields of an enquiry that reporting needs (id, time, topic, course, email, phone).
+     */
+    public CompletableFuture<Long> appendEnquiry(EnquiryRequest request) throws IOException {
+        return log.append(encodeEnquiry(request));
+    }
+
+    /**
+     * Records that a one-off step, such as a data migration, has completed. Returns once durable.
+     */
+    public void appendMarker(String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TYPE_MARKER);
+            out.writeByte(CODEC_VERSION);
+            writeString(out, name);
+        }
+        log.appendAndWait(bytes.toByteArray());
+    }
+
+    public boolean hasMarker(String name) throws IOException {
+        boolean[] found = {false};
+        log.forEach((offset, payload) -> {
+            if (payload.length > 0 && payload[0] == TYPE_MARKER) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 2, payload.length - 2));
+                found[0] |= name.equals(readString(in));
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Replays registrations (as first recorded, without receipt outcomes) and enquiry summaries in journal order.
+     */
+    public void forEachEvent(Consumer<Registration> registrations, Consumer<EnquiryRequest> enquiries) throws IOException {
+        log.forEach((offset, payload) -> {
+            if (payload.length == 0) {
+                return;
+            }
+            if (payload[0] == TYPE_REGISTRATION) {
+                registrations.accept(decode(payload));
+            } else if (payload[0] == TYPE_ENQUIRY) {
+                enquiries.accept(decodeEnquiry(payload));
+            }
+        });
+    }
+
+    /**
+     * Replays registrations in journal order, with {@code receiptSent} taken from the latest receipt status
+     * recorded for each one.
+     */
+    public void forEach(Consumer<Registration> consumer) throws IOException {
+        log.forEach((offset, payload) -> {
+            Registration reg = decode(payload);
+            if (reg != null) {
+                String receiptSent = RECEIPT_STATUSES[receiptStatuses.get(reg.getId())];
+                if (receiptSent != null) {
+                    reg.setReceiptSent(receiptSent);
+                }
+                consumer.accept(reg);
+            }
+        });
+    }
+
+    public List<Registration> readAll() throws IOException {
+        List<Registration> registrations = new ArrayList<>();
+        forEach(registrations::add);
+        return registrations;
+    }
+
+    public RecordLog getLog() {
+        return log;
+    }
+
+    byte[] encode(Registration reg) throws IOException {
+        return encode(reg, null, 0);
+    }
+
+    /**
+     * The import source and row, when given, trail the registration fields; {@link #decode} does not read them.
+     */
+    private byte[] encode(Registration reg, String source, int row) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TYPE_REGISTRATION);
+            out.writeByte(COURSE_KEY_VERSION);
+            out.writeLong(reg.getId());
+            writeString(out, reg.getName());
+            writeString(out, reg.getWhatsapp());
+            writeString(out, reg.getEmail());
+            writeString(out, reg.getPaymentScreenshot());
+            writeString(out, reg.getSelectedCourse());
+            writeString(out, courseKey(reg.getCourseId()));
+            writeString(out, reg.getRegisteredAt() != null ? reg.getRegisteredAt().toString() : null);
+            writeString(out, reg.getReceiptSent());
+            if (source != null) {
+                writeString(out, source);
+                out.writeInt(row);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte receiptStatusCode(String receiptSent) {
+        for (byte code = 1; code < RECEIPT_STATUSES.length; code++) {
+            if (RECEIPT_STATUSES[code].equals(receiptSent)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    static byte[] encodeReceiptStatus(long registrationId, String receiptSent) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TYPE_RECEIPT_STATUS);
+            out.writeByte(CODEC_VERSION);
+            out.writeLong(registrationId);
+            writeString(out, receiptSent);
+        }
+        return bytes.toByteArray();
+    }
+
+    byte[] encodeEnquiry(EnquiryRequest request) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TYPE_ENQUIRY);
+            out.writeByte(COURSE_KEY_VERSION);
+            out.writeLong(request.getId());
+            writeString(out, request.getSubmittedAt() != null ? request.getSubmittedAt().toString() : null);
+            writeString(out, request.getTopic());
+            writeString(out, courseKey(request.getCourseId()));
+            writeString(out, request.getEmail());
+            writeString(out, request.getPhone());
+        }
+        return bytes.toByteArray();
+    }
+
+    EnquiryRequest decodeEnquiry(byte[] payload) throws IOException {
+        byte version = payload[1];
+        if (version != CODEC_VERSION && version != COURSE_KEY_VERSION) {
+            throw new IOException("Unsupported enquiry record version");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 2, payload.length - 2));
+        EnquiryRequest request = new EnquiryRequest();
+        request.setId(in.readLong());
+        String submittedAt = readString(in);
+        request.setSubmittedAt(submittedAt != null ? LocalDateTime.parse(submittedAt) : null);
+        request.setTopic(readString(in));
+        request.setCourseId(version == CODEC_VERSION ? storedId(in.readInt(), null) : courseId(readString(in)));
+        request.setEmail(readString(in));
+        request.setPhone(readString(in));
+        return request;
+    }
+
+    Registration decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != TYPE_REGISTRATION) {
+            return null;
+        }
+        byte version = in.readByte();
+        if (version != CODEC_VERSION && version != COURSE_KEY_VERSION) {
+            throw new IOException("Unsupported registration record version");
+        }
+        Registration reg = new Registration();
+        reg.setId(in.readLong());
+        reg.setName(readString(in));
+        reg.setWhatsapp(readString(in));
+        reg.setEmail(readString(in));
+        reg.setPaymentScreenshot(readString(in));
+        reg.setSelectedCourse(readString(in));
+        reg.setCourseId(version == CODEC_VERSION ? storedId(in.readInt(), reg.getSelectedCourse()) : courseId(readString(in)));
+        String registeredAt = readString(in);
+        reg.setRegisteredAt(registeredAt != null ? LocalDateTime.parse(registeredAt) : null);
+        reg.setReceiptSent(readString(in));
+        return reg;
+    }
+
+    private String courseKey(Integer courseId) {
+        return courseId != null ? syllabusService.getCatalog().getCourseKey(courseId) : null;
+    }
+
+    /**
+     * Current id of the course recorded under {@code key}, or {@code null} when it is no longer in the catalog.
+     */
+    private Integer courseId(String key) {
+        int id = key != null ? syllabusService.getCatalog().exactCourseId(key) : -1;
+        return id >= 0 ? id : null;
+    }
+
+    /**
+     * Records written before course keys stored the id itself. The exactly named course wins when there is one,
+     * since the id may have shifted since.
+     */
+    private Integer storedId(int courseId, String course) {
+        Integer byName = courseId >= 0 ? courseId(course) : null;
+        return byName != null ? byName : courseId >= 0 ? Integer.valueOf(courseId) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void skipString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length > 0) {
+            in.skipNBytes(length);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated registration record");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
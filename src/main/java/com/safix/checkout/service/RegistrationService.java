@@ -1,66 +1,95 @@
 package com.safix.checkout.service;
 
 import com.safix.checkout.model.Registration;
+import jakarta.annotation.PostConstruct;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
-import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class RegistrationService {
     
     @Autowired
-    private EmailService emailService;
+    private ReceiptPipeline receiptPipeline;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private RegistrationJournal journal;
+
+    @Autowired
+    private ScreenshotStore screenshotStore;
+
+    @Autowired
+    private ScreenshotPipeline screenshotPipeline;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SyllabusService syllabusService;
     
-    private static final String UPLOAD_DIR = "uploads/screenshots/";
     private static final String EXCEL_FILE = "registrations.xlsx";
+    private static final DateTimeFormatter EXCEL_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    private static final String[] EXCEL_HEADERS = {"ID", "Name", "WhatsApp", "Email", "Screenshot", "Registered At", "Receipt Sent", "Course", "Course ID"};
+    private static final int EXPORT_ROW_WINDOW = 100;
+    private static final String LEGACY_IMPORT_MARKER = "legacy-workbook-import";
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrationService.class);
     
-    public Registration saveRegistration(String name, String whatsapp, String email, MultipartFile screenshot) throws IOException {
-        // Save screenshot
-        String filename = System.currentTimeMillis() + "_" + screenshot.getOriginalFilename();
-        Path uploadPath = Paths.get(UPLOAD_DIR);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        Files.copy(screenshot.getInputStream(), uploadPath.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+    public Registration saveRegistration(String name, String whatsapp, String email, String course, Integer courseId,
+                                         MultipartFile screenshot) throws IOException {
+        // Save screenshot (content-addressed; identical images are stored once)
+        String screenshotRef = screenshotStore.store(screenshot);
         
         // Create registration object
         Registration reg = new Registration();
+        reg.setId(idGenerator.nextId());
         reg.setName(name);
         reg.setWhatsapp(whatsapp);
         reg.setEmail(email);
-        reg.setPaymentScreenshot(filename);
+        reg.setSelectedCourse(course);
+        reg.setCourseId(courseId);
+        reg.setPaymentScreenshot(screenshotRef);
+        reg.setReceiptSent(ReceiptPipeline.PENDING);
         
-        // Save to Excel (primary storage)
-        exportToExcel(reg);
+        // Append to the journal (primary storage); durable once this returns
+        journal.append(reg);
+        analyticsService.recordRegistration(reg);
         
-        // Send receipt email
-        emailService.sendReceipt(reg);
-        reg.setReceiptSent("YES");
+        // Thumbnail and archival copy are made in the background; this only queues the job
+        screenshotPipeline.submit(screenshotRef);
+        
+        // PDF and email run in the background too; the outcome replaces PENDING in the journal
+        receiptPipeline.submit(reg);
         
         return reg;
     }
     
-    private void exportToExcel(Registration reg) throws IOException {
-        Workbook workbook;
-        Sheet sheet;
-        int rowNum;
-        
-        File file = new File(EXCEL_FILE);
-        if (file.exists()) {
-            FileInputStream fis = new FileInputStream(file);
-            workbook = new XSSFWorkbook(fis);
-            sheet = workbook.getSheetAt(0);
-            rowNum = sheet.getLastRowNum() + 1;
-            fis.close();
-        } else {
-            workbook = new XSSFWorkbook();
-            sheet = workbook.createSheet("Registrations");
+    /**
+     * Streams registrations registered between {@code from} and {@code to} (inclusive, either may be null) and
+     * optionally for one course to {@code out} as an .xlsx workbook. Only {@value #EXPORT_ROW_WINDOW} rows are
+     * held in memory at a time; older rows are flushed to POI's temporary file as the journal is read.
+     */
+    public int exportToExcel(OutputStream out, LocalDate from, LocalDate to, Integer courseId) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Registrations");
             
             // Create header row with styling
             Row headerRow = sheet.createRow(0);
@@ -69,28 +98,136 @@ public class RegistrationService {
             headerFont.setBold(true);
             headerStyle.setFont(headerFont);
             
-            String[] headers = {"ID", "Name", "WhatsApp", "Email", "Screenshot", "Registered At", "Receipt Sent"};
-            for (int i = 0; i < headers.length; i++) {
+            sheet.trackAllColumnsForAutoSizing();
+            for (int i = 0; i < EXCEL_HEADERS.length; i++) {
                 Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
+                cell.setCellValue(EXCEL_HEADERS[i]);
                 cell.setCellStyle(headerStyle);
                 sheet.autoSizeColumn(i);
             }
-            rowNum = 1;
+            sheet.untrackAllColumnsForAutoSizing();
+            
+            int[] rowNum = {1};
+            journal.forEach(reg -> {
+                if (!matches(reg, from, to, courseId)) {
+                    return;
+                }
+                Row row = sheet.createRow(rowNum[0]++);
+                // Text, not a number: ids do not fit in a double
+                row.createCell(0).setCellValue(String.valueOf(reg.getId()));
+                row.createCell(1).setCellValue(reg.getName());
+                row.createCell(2).setCellValue(reg.getWhatsapp());
+                row.createCell(3).setCellValue(reg.getEmail());
+                row.createCell(4).setCellValue(reg.getPaymentScreenshot());
+                row.createCell(5).setCellValue(reg.getRegisteredAt() != null ? reg.getRegisteredAt().format(EXCEL_DATE_FORMAT) : "");
+                row.createCell(6).setCellValue(reg.getReceiptSent() != null ? reg.getReceiptSent() : "PENDING");
+                row.createCell(7).setCellValue(reg.getSelectedCourse() != null ? reg.getSelectedCourse() : "");
+                if (reg.getCourseId() != null) {
+                    row.createCell(8).setCellValue(reg.getCourseId());
+                }
+            });
+            
+            workbook.write(out);
+            return rowNum[0] - 1;
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
-        
-        Row row = sheet.createRow(rowNum);
-        row.createCell(0).setCellValue(reg.getId());
-        row.createCell(1).setCellValue(reg.getName());
-        row.createCell(2).setCellValue(reg.getWhatsapp());
-        row.createCell(3).setCellValue(reg.getEmail());
-        row.createCell(4).setCellValue(reg.getPaymentScreenshot());
-        row.createCell(5).setCellValue(reg.getRegisteredAt().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss")));
-        row.createCell(6).setCellValue(reg.getReceiptSent() != null ? reg.getReceiptSent() : "PENDING");
-        
-        FileOutputStream fos = new FileOutputStream(EXCEL_FILE);
-        workbook.write(fos);
-        workbook.close();
-        fos.close();
+    }
+    
+    static boolean matches(Registration reg, LocalDate from, LocalDate to, Integer courseId) {
+        if (courseId != null && !courseId.equals(reg.getCourseId())) {
+            return false;
+        }
+        if (from == null && to == null) {
+            return true;
+        }
+        if (reg.getRegisteredAt() == null) {
+            return false;
+        }
+        LocalDate day = reg.getRegisteredAt().toLocalDate();
+        return (from == null || !day.isBefore(from)) && (to == null || !day.isAfter(to));
+    }
+    
+    /**
+     * One-time migration: rows from a {@code registrations.xlsx} written by earlier versions are copied into the
+     * journal, which then records that the import is done. A row that cannot be read is logged and skipped. If the
+     * import stops part way, it runs again on the next start and skips the rows it already added. The workbook
+     * itself is left untouched.
+     */
+    @PostConstruct
+    public void importLegacyWorkbook() {
+        File file = new File(EXCEL_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            if (journal.hasMarker(LEGACY_IMPORT_MARKER)) {
+                return;
+            }
+            // By row, not by id: legacy ids are millisecond timestamps and two rows can share one
+            Set<Integer> imported = journal.importedRows(EXCEL_FILE);
+            List<CompletableFuture<Long>> appended = new ArrayList<>();
+            int skipped = 0;
+            try (FileInputStream fis = new FileInputStream(file); Workbook workbook = new XSSFWorkbook(fis)) {
+                Sheet sheet = workbook.getSheetAt(0);
+                DataFormatter formatter = new DataFormatter();
+                for (int rowNum = 1; rowNum <= sheet.getLastRowNum(); rowNum++) {
+                    Row row = sheet.getRow(rowNum);
+                    if (row == null || row.getCell(0) == null || imported.contains(rowNum)) {
+                        continue;
+                    }
+                    Registration reg;
+                    try {
+                        reg = readLegacyRow(row, formatter);
+                    } catch (RuntimeException e) {
+                        skipped++;
+                        LOG.warn("Skipping row {} of {}: {}", rowNum + 1, EXCEL_FILE, e.toString());
+                        continue;
+                    }
+                    // The dashboard was rebuilt from the journal before this ran (it is a dependency)
+                    appended.add(journal.appendImported(reg, EXCEL_FILE, rowNum).whenComplete((offset, ex) -> {
+                        if (ex == null) {
+                            analyticsService.recordRegistration(reg);
+                        }
+                    }));
+                }
+            }
+            CompletableFuture.allOf(appended.toArray(new CompletableFuture[0])).join();
+            journal.appendMarker(LEGACY_IMPORT_MARKER);
+            LOG.info("Imported {} registrations from {} ({} already imported, {} unreadable rows skipped)",
+                    appended.size(), EXCEL_FILE, imported.size(), skipped);
+        } catch (IOException | RuntimeException e) {
+            // No marker yet, so the import is retried on the next start
+            LOG.error("Importing {} failed", EXCEL_FILE, e);
+        }
+    }
+
+    private Registration readLegacyRow(Row row, DataFormatter formatter) {
+        Registration reg = new Registration();
+        Cell idCell = row.getCell(0);
+        reg.setId(idCell.getCellType() == CellType.NUMERIC
+                ? (long) idCell.getNumericCellValue()
+                : Long.parseLong(formatter.formatCellValue(idCell).trim()));
+        reg.setName(formatter.formatCellValue(row.getCell(1)));
+        reg.setWhatsapp(formatter.formatCellValue(row.getCell(2)));
+        reg.setEmail(formatter.formatCellValue(row.getCell(3)));
+        reg.setPaymentScreenshot(formatter.formatCellValue(row.getCell(4)));
+        String registeredAt = formatter.formatCellValue(row.getCell(5));
+        if (!registeredAt.isBlank()) {
+            reg.setRegisteredAt(LocalDateTime.parse(registeredAt, EXCEL_DATE_FORMAT));
+        }
+        // Earlier versions wrote the row before sending, so nearly every row says PENDING; those
+        // customers were emailed (or not) long ago and must not be queued again.
+        String receiptSent = formatter.formatCellValue(row.getCell(6)).trim();
+        reg.setReceiptSent(ReceiptPipeline.SENT.equals(receiptSent) ? receiptSent : ReceiptPipeline.LEGACY);
+        String course = formatter.formatCellValue(row.getCell(7));
+        reg.setSelectedCourse(course.isBlank() ? null : course);
+        // Course ids in the workbook are positions in the catalog of the time; the name is what still holds
+        int exactId = syllabusService.getCatalog().exactCourseId(course);
+        String courseId = formatter.formatCellValue(row.getCell(8));
+        reg.setCourseId(exactId >= 0 ? Integer.valueOf(exactId)
+                : courseId.isBlank() ? null : Integer.valueOf(courseId.trim()));
+        return reg;
     }
 }
@@ -0,0 +1,106 @@
+package com.safix.checkout.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rendered HTML for catalog pages, keyed by view, course and catalog version. A page is rendered at most
+ * once per key until it is evicted or the catalog is reloaded; hits skip both the catalog lookups and Thymeleaf.
+ * ETags are derived from the same inputs rather than from the HTML, so a conditional request can be answered
+ * with a 304 before anything is looked up or rendered.
+ */
+@Service
+public class RenderedPageCache {
+
+    @Value("${page.cache.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${page.cache.max-age-seconds:60}")
+    private long maxAgeSeconds;
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    private LruCache<Key, String> pages;
+    private CacheControl cacheControl;
+    private volatile JakartaServletWebApplication webApplication;
+    // Templates can change between deployments while catalog versions repeat, so ETags are per process
+    private String instance;
+
+    @PostConstruct
+    public void init() {
+        instance = Long.toString(System.currentTimeMillis(), 36);
+        pages = new LruCache<>(maxEntries);
+        cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * ETag of {@code view} for a page determined by {@code pageKey} (a course id, or the course text when no
+     * course matches exactly) and the catalog version.
+     */
+    public String etag(String view, String pageKey, long catalogVersion) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.valueOf(pageKey).getBytes(StandardCharsets.UTF_8));
+            return "\"" + view + "-" + HexFormat.of().formatHex(digest, 0, 8) + "-" + catalogVersion + "-" + instance + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Returns the cached HTML for {@code cacheKey}, rendering {@code view} with the supplied model on a miss.
+     * A {@code null} key renders without caching, for pages whose output is not determined by the key alone.
+     */
+    public String get(String view, String cacheKey, long catalogVersion, Supplier<Map<String, Object>> model,
+                      HttpServletRequest request, HttpServletResponse response) {
+        if (cacheKey == null) {
+            return render(view, model.get(), request, response);
+        }
+        return pages.computeIfAbsent(new Key(view, cacheKey, catalogVersion),
+                key -> render(view, model.get(), request, response));
+    }
+
+    public CacheControl getCacheControl() {
+        return cacheControl;
+    }
+
+    public int size() {
+        return pages.size();
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        pages.clear();
+    }
+
+    private String render(String view, Map<String, Object> model, HttpServletRequest request,
+                        HttpServletResponse response) {
+        JakartaServletWebApplication application = webApplication;
+        if (application == null) {
+            application = JakartaServletWebApplication.buildApplication(request.getServletContext());
+            webApplication = application;
+        }
+        WebContext context = new WebContext(application.buildExchange(request, response), request.getLocale(), model);
+        return templateEngine.process(view, context);
+    }
+
+    private record Key(String view, String cacheKey, long catalogVersion) {
+    }
+}
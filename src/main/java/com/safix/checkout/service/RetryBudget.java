@@ -0,0 +1,55 @@
+package com.safix.checkout.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries at a fraction of traffic, shared by every caller. Each first attempt deposits {@code percent}/100
+ * of a retry into the budget, up to {@code maxRetries}; each retry withdraws a whole one. When the budget is
+ * empty, failures are returned to the caller instead of being retried, so an outage is not amplified.
+ */
+public final class RetryBudget {
+
+    private static final long ONE = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    // In thousandths of a retry
+    private final AtomicLong balance;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+
+    public RetryBudget(int percent, int maxRetries) {
+        if (percent < 0 || maxRetries < 0) {
+            throw new IllegalArgumentException("percent and maxRetries must be >= 0");
+        }
+        this.deposit = ONE * percent / 100;
+        this.maxBalance = ONE * maxRetries;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    public void recordCall() {
+        balance.accumulateAndGet(deposit, (current, add) -> Math.min(maxBalance, current + add));
+    }
+
+    public boolean tryRetry() {
+        while (true) {
+            long current = balance.get();
+            if (current < ONE) {
+                denied.incrementAndGet();
+                return false;
+            }
+            if (balance.compareAndSet(current, current - ONE)) {
+                retries.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getDenied() {
+        return denied.get();
+    }
+}
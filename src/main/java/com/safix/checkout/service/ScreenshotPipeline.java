@@ -0,0 +1,202 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.PipelineStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Produces a small review thumbnail and a recompressed archival JPEG for each stored screenshot, on a
+ * bounded pool of background workers. Submitting never blocks: when the queue is full the job is dropped
+ * and counted, and the variants can be produced later by submitting the reference again.
+ */
+@Service
+public class ScreenshotPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScreenshotPipeline.class);
+
+    public static final String THUMBNAIL = "thumb";
+    public static final String ARCHIVE = "archive";
+
+    @Value("${screenshots.pipeline.threads:2}")
+    private int threads;
+
+    @Value("${screenshots.pipeline.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${screenshots.pipeline.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    @Value("${screenshots.pipeline.archive-size:1600}")
+    private int archiveSize;
+
+    @Value("${screenshots.pipeline.archive-quality:0.75}")
+    private float archiveQuality;
+
+    @Autowired
+    private ScreenshotStore screenshotStore;
+
+    private final LatencyRecorder processing = new LatencyRecorder();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-pipeline-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                (runnable, pool) -> rejected.incrementAndGet());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues thumbnail and archive generation for a stored screenshot. Returns immediately.
+     */
+    public void submit(String reference) {
+        executor.execute(() -> process(reference));
+    }
+
+    public PipelineStats getStats() {
+        return new PipelineStats(
+                executor.getQueue().size(),
+                queueCapacity,
+                executor.getActiveCount(),
+                completed.get(),
+                failed.get(),
+                rejected.get(),
+                skipped.get(),
+                processing.snapshot()
+        );
+    }
+
+    private void process(String reference) {
+        long started = System.nanoTime();
+        try {
+            Path source = screenshotStore.resolve(reference);
+            Path thumbnail = screenshotStore.resolveVariant(reference, THUMBNAIL);
+            Path archive = screenshotStore.resolveVariant(reference, ARCHIVE);
+            if (Files.exists(thumbnail) && Files.exists(archive)) {
+                skipped.incrementAndGet();
+                return;
+            }
+
+            // Decode once at the archive size; the thumbnail is scaled down from that.
+            BufferedImage decoded = readSubsampled(source, archiveSize);
+            if (decoded == null) {
+                skipped.incrementAndGet();
+                return;
+            }
+            BufferedImage archived = scaleToFit(decoded, archiveSize);
+            writeJpeg(archived, archive, archiveQuality);
+            writeJpeg(scaleToFit(archived, thumbnailSize), thumbnail, 0.8f);
+            completed.incrementAndGet();
+        } catch (IOException | RuntimeException ex) {
+            failed.incrementAndGet();
+            LOG.warn("Could not process screenshot {}", reference, ex);
+        } finally {
+            processing.record(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Reads the image with the largest source subsampling that still leaves its long edge at or above
+     * {@code maxEdge}, so a 4000px screenshot is never materialized at full resolution. Returns {@code null}
+     * when no ImageIO reader understands the file.
+     */
+    private static BufferedImage readSubsampled(Path source, int maxEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longEdge / maxEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scaleToFit(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // JPEG has no alpha: flatten onto white while scaling.
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, targetWidth, targetHeight);
+            g.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target, float quality) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".part");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
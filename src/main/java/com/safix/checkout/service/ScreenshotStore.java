@@ -0,0 +1,139 @@
+package com.safix.checkout.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for payment screenshots. An upload is streamed to a temporary file while it is
+ * hashed, then moved to {@code <root>/<h0h1>/<h2h3>/<sha256>.<ext>}. Identical images are stored once, and no
+ * directory holds more than a small slice of the files.
+ */
+@Service
+public class ScreenshotStore {
+
+    private static final Pattern REFERENCE = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]{1,5}");
+    private static final long TRANSFER_CHUNK = 1 << 20;
+
+    @Value("${screenshots.dir:uploads/screenshots}")
+    private String rootDir;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    /**
+     * Stores an upload and returns its reference, {@code <sha256>.<ext>}. The extension comes from the file's
+     * leading bytes, never from the client's filename.
+     */
+    public String store(MultipartFile upload) throws IOException {
+        Path root = Path.of(rootDir);
+        Path incoming = root.resolve("incoming");
+        Files.createDirectories(incoming);
+        Path temp = Files.createTempFile(incoming, "upload-", ".part");
+
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream in = upload.getInputStream();
+                 ReadableByteChannel source = Channels.newChannel(new DigestInputStream(in, digest));
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                    position += transferred;
+                }
+            }
+
+            String reference = HexFormat.of().formatHex(digest.digest()) + "." + sniffExtension(temp);
+            Path destination = resolve(reference);
+            if (Files.exists(destination)) {
+                deduplicated.incrementAndGet();
+                return reference;
+            }
+
+            Files.createDirectories(destination.getParent());
+            // Two concurrent uploads of the same image race to the same name with the same bytes; either wins.
+            Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            stored.incrementAndGet();
+            return reference;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps a reference returned by {@link #store} to its file. Rejects anything that is not a reference.
+     */
+    public Path resolve(String reference) {
+        if (reference == null || !REFERENCE.matcher(reference).matches()) {
+            throw new IllegalArgumentException("Not a screenshot reference: " + reference);
+        }
+        return Path.of(rootDir, reference.substring(0, 2), reference.substring(2, 4), reference);
+    }
+
+    /**
+     * Path of a derived JPEG (e.g. a thumbnail) kept beside the original: {@code <sha256>.<variant>.jpg}.
+     */
+    public Path resolveVariant(String reference, String variant) {
+        Path original = resolve(reference);
+        String hash = reference.substring(0, reference.indexOf('.'));
+        return original.resolveSibling(hash + "." + variant + ".jpg");
+    }
+
+    public long getStoredCount() {
+        return stored.get();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    private static String sniffExtension(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // Fill the header buffer.
+            }
+        }
+        byte[] b = header.array();
+        int length = header.position();
+        if (length >= 8 && (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') {
+            return "png";
+        }
+        if (length >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (length >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8') {
+            return "gif";
+        }
+        if (length >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "webp";
+        }
+        if (length >= 4 && b[0] == '%' && b[1] == 'P' && b[2] == 'D' && b[3] == 'F') {
+            return "pdf";
+        }
+        return "bin";
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.Course;
+
+import java.util.*;
+
+/**
+ * Immutable search index over one catalog snapshot. Terms are kept in sorted arrays so a prefix maps to a
+ * contiguous range found by binary search; each term points at primitive postings (course ids and term
+ * frequencies). Course names get a separate, smaller dictionary for typeahead.
+ */
+final class SearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.6;
+    private static final double NAME_BOOST = 4.0;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int SNIPPET_RADIUS = 80;
+
+    private final SyllabusCatalog catalog;
+    private final int documents;
+
+    private final String[] terms;
+    private final int[][] postingDocs;
+    private final int[][] postingFreqs;
+    private final int[] docLengths;
+    private final double avgDocLength;
+
+    private final String[] nameTerms;
+    private final int[][] namePostings;
+    private final String[] normalizedNames;
+    private final String[] syllabusTexts;
+    private final String[] lowerCaseTexts;
+
+    private SearchIndex(SyllabusCatalog catalog, Map<String, int[][]> body, Map<String, int[]> names,
+                        int[] docLengths, String[] normalizedNames, String[] syllabusTexts) {
+        this.catalog = catalog;
+        this.syllabusTexts = syllabusTexts;
+        this.lowerCaseTexts = new String[syllabusTexts.length];
+        for (int i = 0; i < syllabusTexts.length; i++) {
+            lowerCaseTexts[i] = syllabusTexts[i].toLowerCase(Locale.ROOT);
+        }
+        this.documents = docLengths.length;
+        this.docLengths = docLengths;
+        this.normalizedNames = normalizedNames;
+
+        long totalLength = 0;
+        for (int length : docLengths) {
+            totalLength += length;
+        }
+        this.avgDocLength = documents == 0 ? 0 : (double) totalLength / documents;
+
+        this.terms = body.keySet().toArray(new String[0]);
+        this.postingDocs = new int[terms.length][];
+        this.postingFreqs = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            int[][] posting = body.get(terms[i]);
+            postingDocs[i] = posting[0];
+            postingFreqs[i] = posting[1];
+        }
+
+        this.nameTerms = names.keySet().toArray(new String[0]);
+        this.namePostings = new int[nameTerms.length][];
+        for (int i = 0; i < nameTerms.length; i++) {
+            namePostings[i] = names.get(nameTerms[i]);
+        }
+    }
+
+    static SearchIndex build(SyllabusCatalog catalog) {
+        List<Course> courses = catalog.getCourses();
+        TreeMap<String, IntPairs> body = new TreeMap<>();
+        TreeMap<String, IntPairs> names = new TreeMap<>();
+        int[] docLengths = new int[courses.size()];
+        String[] normalizedNames = new String[courses.size()];
+        String[] syllabusTexts = new String[courses.size()];
+
+        for (Course course : courses) {
+            int doc = course.id();
+            normalizedNames[doc] = String.join(" ", tokenize(course.name()));
+
+            syllabusTexts[doc] = catalog.getSyllabus(doc);
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            List<String> tokens = tokenize(course.name() + " " + catalog.getSectorName(doc) + " " + syllabusTexts[doc]);
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            docLengths[doc] = tokens.size();
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                body.computeIfAbsent(entry.getKey(), key -> new IntPairs()).add(doc, entry.getValue());
+            }
+            for (String token : new LinkedHashSet<>(tokenize(course.name()))) {
+                names.computeIfAbsent(token, key -> new IntPairs()).add(doc, 1);
+            }
+        }
+
+        Map<String, int[][]> bodyPostings = new LinkedHashMap<>();
+        body.forEach((term, pairs) -> bodyPostings.put(term, new int[][]{pairs.firsts(), pairs.seconds()}));
+        Map<String, int[]> namePostings = new LinkedHashMap<>();
+        names.forEach((term, pairs) -> namePostings.put(term, pairs.firsts()));
+        return new SearchIndex(catalog, bodyPostings, namePostings, docLengths, normalizedNames, syllabusTexts);
+    }
+
+    long getVersion() {
+        return catalog.getVersion();
+    }
+
+    SyllabusCatalog getCatalog() {
+        return catalog;
+    }
+
+    int getDocumentCount() {
+        return documents;
+    }
+
+    int getTermCount() {
+        return terms.length;
+    }
+
+    int getNameTermCount() {
+        return nameTerms.length;
+    }
+
+    long getPostingCount() {
+        long count = 0;
+        for (int[] docs : postingDocs) {
+            count += docs.length;
+        }
+        return count;
+    }
+
+    /**
+     * Course ids whose name contains every query token, the last one as a prefix. Names that start with the
+     * query come first, then shorter names.
+     */
+    int[] suggest(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+
+        boolean[] candidates = null;
+        for (int t = 0; t < tokens.size(); t++) {
+            boolean last = t == tokens.size() - 1;
+            int[] range = last ? prefixRange(nameTerms, tokens.get(t)) : exactRange(nameTerms, tokens.get(t));
+            boolean[] matches = new boolean[documents];
+            for (int i = range[0]; i < range[1]; i++) {
+                for (int doc : namePostings[i]) {
+                    matches[doc] = true;
+                }
+            }
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                for (int doc = 0; doc < documents; doc++) {
+                    candidates[doc] &= matches[doc];
+                }
+            }
+        }
+
+        String normalizedQuery = String.join(" ", tokens);
+        int[] hits = new int[documents];
+        int count = 0;
+        for (int doc = 0; doc < documents; doc++) {
+            if (candidates[doc]) {
+                hits[count++] = doc;
+            }
+        }
+        Integer[] ordered = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            ordered[i] = hits[i];
+        }
+        Arrays.sort(ordered, Comparator
+                .comparing((Integer doc) -> !normalizedNames[doc].startsWith(normalizedQuery))
+                .thenComparingInt(doc -> normalizedNames[doc].length())
+                .thenComparingInt(doc -> doc));
+
+        int[] result = new int[Math.min(limit, count)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ordered[i];
+        }
+        return result;
+    }
+
+    /**
+     * BM25 over course name, sector name and syllabus text. The last query token also matches as a prefix
+     * (weighted down), so results keep up with typing. Courses matching more distinct query tokens rank first.
+     */
+    Hit[] search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return new Hit[0];
+        }
+
+        double[] scores = new double[documents];
+        int[] coverage = new int[documents];
+        int[] seenToken = new int[documents];
+        Arrays.fill(seenToken, -1);
+
+        for (int t = 0; t < tokens.size(); t++) {
+            String token = tokens.get(t);
+            boolean last = t == tokens.size() - 1;
+            int[] range = last ? prefixRange(terms, token) : exactRange(terms, token);
+            int end = Math.min(range[1], range[0] + MAX_PREFIX_EXPANSIONS);
+            for (int i = range[0]; i < end; i++) {
+                double weight = terms[i].length() == token.length() ? 1.0 : PREFIX_WEIGHT;
+                int[] docs = postingDocs[i];
+                int[] freqs = postingFreqs[i];
+                double idf = Math.log(1 + (documents - docs.length + 0.5) / (docs.length + 0.5));
+                for (int p = 0; p < docs.length; p++) {
+                    int doc = docs[p];
+                    double tf = freqs[p];
+                    double norm = tf + K1 * (1 - B + B * docLengths[doc] / avgDocLength);
+                    scores[doc] += weight * idf * tf * (K1 + 1) / norm;
+                    if (seenToken[doc] != t) {
+                        seenToken[doc] = t;
+                        coverage[doc]++;
+                    }
+                }
+            }
+
+            int[] nameRange = last ? prefixRange(nameTerms, token) : exactRange(nameTerms, token);
+            int nameEnd = Math.min(nameRange[1], nameRange[0] + MAX_PREFIX_EXPANSIONS);
+            for (int i = nameRange[0]; i < nameEnd; i++) {
+                for (int doc : namePostings[i]) {
+                    scores[doc] += NAME_BOOST;
+                }
+            }
+        }
+
+        // Top-k by insertion into a small sorted array; k is tiny compared to the course count.
+        int[] top = new int[Math.min(limit, documents)];
+        int size = 0;
+        for (int doc = 0; doc < documents; doc++) {
+            if (coverage[doc] == 0) {
+                continue;
+            }
+            int position = size;
+            while (position > 0 && ranksBefore(doc, top[position - 1], coverage, scores)) {
+                position--;
+            }
+            if (position >= top.length) {
+                continue;
+            }
+            int moved = Math.min(size, top.length - 1) - position;
+            System.arraycopy(top, position, top, position + 1, moved);
+            top[position] = doc;
+            size = Math.min(size + 1, top.length);
+        }
+
+        Hit[] hits = new Hit[size];
+        for (int i = 0; i < size; i++) {
+            int doc = top[i];
+            hits[i] = new Hit(doc, scores[doc], snippet(doc, tokens));
+        }
+        return hits;
+    }
+
+    private static boolean ranksBefore(int doc, int other, int[] coverage, double[] scores) {
+        if (coverage[doc] != coverage[other]) {
+            return coverage[doc] > coverage[other];
+        }
+        return scores[doc] > scores[other];
+    }
+
+    private String snippet(int doc, List<String> tokens) {
+        String text = syllabusTexts[doc];
+        if (text.isEmpty()) {
+            return "";
+        }
+        // Lower-casing can change string length for a few scripts; fall back to the start of the text then.
+        String lower = lowerCaseTexts[doc].length() == text.length() ? lowerCaseTexts[doc] : "";
+        int first = -1;
+        for (String token : tokens) {
+            int index = lower.indexOf(token);
+            if (index >= 0 && (first < 0 || index < first)) {
+                first = index;
+            }
+        }
+        int start = Math.max(0, first < 0 ? 0 : first - SNIPPET_RADIUS);
+        int end = Math.min(text.length(), (first < 0 ? 0 : first) + SNIPPET_RADIUS);
+        StringBuilder snippet = new StringBuilder(end - start + 2);
+        if (start > 0) {
+            snippet.append('…');
+        }
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = snippet.length() > (start > 0 ? 1 : 0);
+                continue;
+            }
+            if (space) {
+                snippet.append(' ');
+                space = false;
+            }
+            snippet.append(c);
+        }
+        if (end < text.length()) {
+            snippet.append('…');
+        }
+        return snippet.toString();
+    }
+
+    private static int[] exactRange(String[] sorted, String token) {
+        int index = Arrays.binarySearch(sorted, token);
+        return index >= 0 ? new int[]{index, index + 1} : new int[]{0, 0};
+    }
+
+    private static int[] prefixRange(String[] sorted, String prefix) {
+        int from = Arrays.binarySearch(sorted, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < sorted.length && sorted[to].startsWith(prefix)) {
+            to++;
+        }
+        return new int[]{from, to};
+    }
+
+    /**
+     * Lower-cased runs of letters and digits. Kept regex-free since it runs on every keystroke.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    record Hit(int courseId, double score, String snippet) {
+    }
+
+    private static final class IntPairs {
+        private int[] firsts = new int[4];
+        private int[] seconds = new int[4];
+        private int size;
+
+        void add(int first, int second) {
+            if (size == firsts.length) {
+                firsts = Arrays.copyOf(firsts, size * 2);
+                seconds = Arrays.copyOf(seconds, size * 2);
+            }
+            firsts[size] = first;
+            seconds[size] = second;
+            size++;
+        }
+
+        int[] firsts() {
+            return Arrays.copyOf(firsts, size);
+        }
+
+        int[] seconds() {
+            return Arrays.copyOf(seconds, size);
+        }
+    }
+}
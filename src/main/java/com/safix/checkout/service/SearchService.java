@@ -0,0 +1,84 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.Course;
+import com.safix.checkout.model.SearchHit;
+import com.safix.checkout.model.SearchResult;
+import com.safix.checkout.model.SearchStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Course typeahead and full-text syllabus search. The index is built from the current catalog snapshot
+ * and rebuilt whenever the catalog is reloaded.
+ */
+@Service
+public class SearchService {
+
+    private static final int MAX_LIMIT = 50;
+
+    @Autowired
+    private SyllabusService syllabusService;
+
+    private final LatencyRecorder latency = new LatencyRecorder();
+    private volatile SearchIndex index;
+    private volatile long buildMillis;
+
+    public SearchResult search(String query, int limit) {
+        long started = System.nanoTime();
+        SearchIndex current = currentIndex();
+        int size = Math.max(1, Math.min(MAX_LIMIT, limit));
+        SyllabusCatalog catalog = current.getCatalog();
+
+        List<SearchHit> suggestions = new ArrayList<>();
+        for (int courseId : current.suggest(query, size)) {
+            Course course = catalog.getCourse(courseId);
+            suggestions.add(new SearchHit(courseId, course.name(), catalog.getSectorName(courseId), 0, null));
+        }
+
+        List<SearchHit> results = new ArrayList<>();
+        for (SearchIndex.Hit hit : current.search(query, size)) {
+            Course course = catalog.getCourse(hit.courseId());
+            results.add(new SearchHit(hit.courseId(), course.name(), catalog.getSectorName(hit.courseId()),
+                    Math.round(hit.score() * 1000) / 1000.0, hit.snippet()));
+        }
+
+        latency.record(System.nanoTime() - started);
+        return new SearchResult(query, current.getVersion(), suggestions, results);
+    }
+
+    public SearchStats getStats() {
+        SearchIndex current = currentIndex();
+        return new SearchStats(current.getVersion(), current.getDocumentCount(), current.getTermCount(),
+                current.getNameTermCount(), current.getPostingCount(), buildMillis, latency.snapshot());
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        rebuild(event.catalog());
+    }
+
+    private SearchIndex currentIndex() {
+        SearchIndex current = index;
+        SyllabusCatalog catalog = syllabusService.getCatalog();
+        if (current == null || current.getVersion() < catalog.getVersion()) {
+            current = rebuild(catalog);
+        }
+        return current;
+    }
+
+    private synchronized SearchIndex rebuild(SyllabusCatalog catalog) {
+        SearchIndex current = index;
+        if (current != null && current.getVersion() >= catalog.getVersion()) {
+            return current;
+        }
+        long started = System.nanoTime();
+        SearchIndex built = SearchIndex.build(catalog);
+        buildMillis = (System.nanoTime() - started) / 1_000_000;
+        index = built;
+        return built;
+    }
+}
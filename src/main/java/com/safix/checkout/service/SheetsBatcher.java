@@ -0,0 +1,172 @@
+package com.safix.checkout.service;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for spreadsheet rows. Callers queue rows and get a future; a single flusher thread collects
+ * whatever is queued, up to {@code maxRows} or until the oldest row has waited {@code maxDelayMillis}, and hands
+ * the lot to the {@link Sender} in one call, waiting for it to finish before starting the next. Rows submitted
+ * together are always sent in the same call.
+ */
+final class SheetsBatcher implements Closeable {
+
+    private static final Pending SHUTDOWN = new Pending(List.of(), null, 0);
+
+    private final Sender sender;
+    private final int maxRows;
+    private final long maxDelayNanos;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private final AtomicLong queuedRows = new AtomicLong();
+    private final AtomicLong rowsSent = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+
+    private volatile boolean closed;
+
+    SheetsBatcher(Sender sender, int maxRows, long maxDelayMillis) {
+        this.sender = sender;
+        this.maxRows = Math.max(1, maxRows);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+        this.flusher = new Thread(this::flushLoop, "sheets-batcher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues rows to be appended together. The future completes when the batch containing them has been written,
+     * or exceptionally with the sender's error.
+     */
+    CompletableFuture<Void> submit(List<SheetRow> rows) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (queue) {
+            if (closed) {
+                done.completeExceptionally(new IllegalStateException("Sheets writer is shut down"));
+                return done;
+            }
+            queuedRows.addAndGet(rows.size());
+            queue.add(new Pending(List.copyOf(rows), done, System.nanoTime()));
+        }
+        return done;
+    }
+
+    long getQueuedRows() {
+        return queuedRows.get();
+    }
+
+    long getRowsSent() {
+        return rowsSent.get();
+    }
+
+    long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    long getBatchesFailed() {
+        return batchesFailed.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(SHUTDOWN);
+        }
+        try {
+            flusher.join(30_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                Pending first = queue.take();
+                if (first == SHUTDOWN) {
+                    stopping = true;
+                } else {
+                    batch.add(first);
+                    stopping = collect(batch, first.enqueuedNanos() + maxDelayNanos);
+                }
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            if (stopping) {
+                // Rows accepted before close still go out.
+                queue.drainTo(batch);
+                batch.remove(SHUTDOWN);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Adds queued rows to {@code batch} until it is full or {@code deadline} passes. Returns true on shutdown.
+     */
+    private boolean collect(List<Pending> batch, long deadline) throws InterruptedException {
+        int rows = batch.get(0).rows().size();
+        while (rows < maxRows) {
+            long remaining = deadline - System.nanoTime();
+            Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return false;
+            }
+            if (next == SHUTDOWN) {
+                return true;
+            }
+            batch.add(next);
+            rows += next.rows().size();
+        }
+        return false;
+    }
+
+    private void flush(List<Pending> batch) {
+        List<SheetRow> rows = new ArrayList<>();
+        for (Pending pending : batch) {
+            rows.addAll(pending.rows());
+        }
+        queuedRows.addAndGet(-rows.size());
+        try {
+            // Wait for the batch in flight; rows queued meanwhile go out together in the next one.
+            sender.send(rows).join();
+            rowsSent.addAndGet(rows.size());
+            batchesSent.incrementAndGet();
+            for (Pending pending : batch) {
+                pending.done().complete(null);
+            }
+        } catch (RuntimeException ex) {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            batchesFailed.incrementAndGet();
+            for (Pending pending : batch) {
+                pending.done().completeExceptionally(cause);
+            }
+        }
+    }
+
+    record SheetRow(String sheetName, List<Object> values) {
+    }
+
+    @FunctionalInterface
+    interface Sender {
+        CompletableFuture<Void> send(List<SheetRow> rows);
+    }
+
+    private record Pending(List<SheetRow> rows, CompletableFuture<Void> done, long enqueuedNanos) {
+    }
+}
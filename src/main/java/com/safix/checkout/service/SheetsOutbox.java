@@ -0,0 +1,472 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.service.SheetsBatcher.SheetRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Local, durable queue in front of the spreadsheet. {@link #append} returns once an entry (the rows for one
+ * enquiry or login) is fsynced to a {@link RecordLog}; a drainer thread then sends entries through the
+ * {@link SheetsBatcher} in order and records how far delivery has got in {@code <log>.offset}.
+ *
+ * <p>After a restart the drainer resumes from the stored offset. An entry delivered just before a crash but
+ * not yet covered by the offset would be sent twice, so for entries that were already in the log at startup the
+ * drainer first reads each target sheet's id column and skips rows whose id is already there.
+ *
+ * <p>When a batch fails, its entries are sent again one at a time, so a single bad row does not hold back the rows
+ * batched with it. An entry the sheet rejects outright (a failure {@code permanentFailure} accepts, such as a
+ * 400 for a cell over the size limit) is moved to {@code <log>.dead} and skipped. Once everything has been
+ * delivered and the log has grown past {@value #COMPACT_AFTER_BYTES} bytes, it is replaced by an empty one.
+ */
+final class SheetsOutbox implements Closeable {
+
+    private static final byte TYPE_ROWS = 1;
+    private static final byte CODEC_VERSION = 1;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_LONG = 2;
+    private static final byte VALUE_DOUBLE = 3;
+    private static final byte VALUE_BOOLEAN = 4;
+    private static final int MAX_ENTRIES_PER_ROUND = 200;
+    private static final long COMPACT_AFTER_BYTES = 8L * 1024 * 1024;
+    private static final Logger LOG = LoggerFactory.getLogger(SheetsOutbox.class);
+
+    private final Path logFile;
+    private final Path offsetFile;
+    private final RecordLog deadLetters;
+    private final SheetsBatcher batcher;
+    private final ExistingIds existingIds;
+    private final Predicate<Throwable> permanentFailure;
+    private final long retryMillis;
+    // Guards swapping the log during compaction against concurrent appends
+    private final Object logLock = new Object();
+    private final Map<String, Set<String>> idsInSheets = new HashMap<>();
+    // Entries past deliveredOffset that did reach the sheet, so a retry of an earlier entry does not resend them.
+    private final Set<Long> deliveredAhead = new HashSet<>();
+    private final Semaphore wakeups = new Semaphore(0);
+    private final CountDownLatch stopping = new CountDownLatch(1);
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final Thread drainer;
+
+    private volatile RecordLog log;
+    private volatile long deliveredOffset;
+    // Entries before this offset were queued before startup and may already be in the sheet
+    private volatile long startupEnd;
+
+    SheetsOutbox(Path logFile, SheetsBatcher batcher, ExistingIds existingIds, Predicate<Throwable> permanentFailure,
+                 long retryMillis) throws IOException {
+        this.logFile = logFile;
+        this.log = new RecordLog(logFile);
+        this.offsetFile = logFile.resolveSibling(logFile.getFileName() + ".offset");
+        this.deadLetters = new RecordLog(logFile.resolveSibling(logFile.getFileName() + ".dead"));
+        this.batcher = batcher;
+        this.existingIds = existingIds;
+        this.permanentFailure = permanentFailure;
+        this.retryMillis = retryMillis;
+        this.deliveredOffset = readOffset(offsetFile);
+        AtomicLong undelivered = new AtomicLong();
+        this.startupEnd = log.readFrom(deliveredOffset, (offset, payload) -> undelivered.incrementAndGet());
+        this.backlog.set(undelivered.get());
+        deadLetters.forEach((offset, payload) -> deadLettered.incrementAndGet());
+
+        this.drainer = new Thread(this::drainLoop, "sheets-outbox");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Durably queues the rows for one record, identified by {@code rowId}. The future completes once they are on
+     * disk; delivery to the sheet happens afterwards.
+     */
+    CompletableFuture<Long> append(long rowId, List<SheetRow> rows) {
+        byte[] payload;
+        try {
+            payload = encode(rowId, System.currentTimeMillis(), rows);
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        // Counted before the write: the drainer can see the record before this future completes.
+        backlog.incrementAndGet();
+        CompletableFuture<Long> written;
+        synchronized (logLock) {
+            written = log.append(payload);
+        }
+        return written.whenComplete((offset, ex) -> {
+            if (ex != null) {
+                backlog.decrementAndGet();
+            } else {
+                wakeups.release();
+            }
+        });
+    }
+
+    long getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Milliseconds the oldest undelivered entry has been waiting, or 0 when everything has been delivered.
+     */
+    long getOldestUndeliveredAgeMillis() {
+        long[] enqueuedAt = {0};
+        try {
+            RecordLog log = this.log;
+            log.readFrom(deliveredOffset, 1, (offset, payload) -> enqueuedAt[0] = decode(offset, payload).enqueuedAt());
+        } catch (IOException ex) {
+            return -1;
+        }
+        return enqueuedAt[0] == 0 ? 0 : Math.max(0, System.currentTimeMillis() - enqueuedAt[0]);
+    }
+
+    long getDelivered() {
+        return delivered.get();
+    }
+
+    long getDuplicatesSkipped() {
+        return duplicatesSkipped.get();
+    }
+
+    /**
+     * Entries in {@code <log>.dead}: rejected by the sheet and not retried.
+     */
+    long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    long getDeliveredOffset() {
+        return deliveredOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopping.countDown();
+        wakeups.release();
+        try {
+            drainer.join(30_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (logLock) {
+            log.close();
+        }
+        deadLetters.close();
+    }
+
+    private void drainLoop() {
+        while (stopping.getCount() > 0) {
+            try {
+                List<Entry> entries = readUndelivered();
+                if (entries.isEmpty()) {
+                    if (deliveredOffset >= COMPACT_AFTER_BYTES) {
+                        compact();
+                    }
+                    wakeups.tryAcquire(1, TimeUnit.SECONDS);
+                    wakeups.drainPermits();
+                    continue;
+                }
+                if (!deliver(entries)) {
+                    // Sheets is down or throttling; keep everything queued and try again later.
+                    stopping.await(retryMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (Exception ex) {
+                LOG.error("Sheets outbox delivery failed", ex);
+                try {
+                    stopping.await(retryMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<Entry> readUndelivered() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long end = log.readFrom(deliveredOffset, MAX_ENTRIES_PER_ROUND, (offset, payload) -> entries.add(decode(offset, payload)));
+        for (int i = 0; i < entries.size(); i++) {
+            long next = i + 1 < entries.size() ? entries.get(i + 1).offset() : end;
+            entries.set(i, entries.get(i).withNext(next));
+        }
+        return entries;
+    }
+
+    /**
+     * Sends entries and moves the delivered offset past the longest delivered prefix. Returns false if any failed.
+     */
+    private boolean deliver(List<Entry> entries) throws Exception {
+        List<CompletableFuture<Void>> sends = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (deliveredAhead.contains(entry.rowId())) {
+                sends.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            List<SheetRow> rows = withoutExisting(entry);
+            if (rows.isEmpty()) {
+                duplicatesSkipped.incrementAndGet();
+                sends.add(CompletableFuture.completedFuture(null));
+            } else {
+                sends.add(batcher.submit(rows));
+            }
+        }
+
+        boolean[] done = new boolean[entries.size()];
+        boolean anyFailed = false;
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                sends.get(i).join();
+                done[i] = true;
+            } catch (RuntimeException ex) {
+                anyFailed = true;
+            }
+        }
+        if (anyFailed) {
+            resendAlone(entries, done);
+        }
+
+        int prefix = 0;
+        boolean gap = false;
+        for (int i = 0; i < entries.size(); i++) {
+            if (done[i]) {
+                deliveredAhead.add(entries.get(i).rowId());
+                if (!gap) {
+                    prefix++;
+                }
+            } else {
+                gap = true;
+            }
+        }
+
+        if (prefix > 0) {
+            for (int i = 0; i < prefix; i++) {
+                deliveredAhead.remove(entries.get(i).rowId());
+            }
+            delivered.addAndGet(prefix);
+            backlog.addAndGet(-prefix);
+            deliveredOffset = entries.get(prefix - 1).next();
+            writeOffset(offsetFile, deliveredOffset);
+        }
+        return !gap;
+    }
+
+    /**
+     * Sends each failed entry in a call of its own (the drainer is the batcher's only producer, so an entry
+     * submitted and awaited alone goes out alone). Entries the sheet rejects are dead-lettered and count as done;
+     * the first failure that may be temporary ends the pass, since Sheets is then likely down for all of them.
+     */
+    private void resendAlone(List<Entry> entries, boolean[] done) throws Exception {
+        for (int i = 0; i < entries.size(); i++) {
+            if (done[i]) {
+                continue;
+            }
+            Entry entry = entries.get(i);
+            try {
+                batcher.submit(withoutExisting(entry)).join();
+                done[i] = true;
+            } catch (RuntimeException ex) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                if (!permanentFailure.test(cause)) {
+                    return;
+                }
+                deadLetters.appendAndWait(encode(entry.rowId(), entry.enqueuedAt(), entry.rows()));
+                deadLettered.incrementAndGet();
+                LOG.warn("Sheets rejected outbox entry {} (row id {}); moved it to {}: {}",
+                        entry.offset(), entry.rowId(), deadLetters.getFile(), cause.toString());
+                done[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Replaces the fully delivered log with an empty one. Records appended meanwhile are carried over. The offset
+     * is reset first: after a crash between the two steps the old log is delivered again from the start, and the
+     * startup check against the sheet's ids keeps that from writing duplicates.
+     */
+    private void compact() throws IOException {
+        Path fresh = logFile.resolveSibling(logFile.getFileName() + ".compact");
+        synchronized (logLock) {
+            // Closing writes out anything accepted but not yet on disk
+            log.close();
+            boolean offsetReset = false;
+            long carried;
+            try {
+                Files.deleteIfExists(fresh);
+                try (RecordLog old = new RecordLog(logFile); RecordLog copy = new RecordLog(fresh)) {
+                    long[] count = {0};
+                    old.readFrom(deliveredOffset, (offset, payload) -> {
+                        copy.appendAndWait(payload);
+                        count[0]++;
+                    });
+                    carried = count[0];
+                }
+                writeOffset(offsetFile, 0);
+                offsetReset = true;
+                Files.move(fresh, logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException ex) {
+                // The old log is still in place; go on using it
+                if (offsetReset) {
+                    writeOffset(offsetFile, deliveredOffset);
+                }
+                Files.deleteIfExists(fresh);
+                log = new RecordLog(logFile);
+                throw ex;
+            }
+            long compactedBytes = deliveredOffset;
+            deliveredOffset = 0;
+            startupEnd = 0;
+            deliveredAhead.clear();
+            log = new RecordLog(logFile);
+            LOG.info("Compacted Sheets outbox {}: dropped {} delivered bytes, carried over {} entries",
+                    logFile, compactedBytes, carried);
+        }
+    }
+
+    /**
+     * For entries that were already queued at startup, drops rows whose id is already in the target sheet.
+     */
+    private List<SheetRow> withoutExisting(Entry entry) throws Exception {
+        if (entry.offset() >= startupEnd) {
+            return entry.rows();
+        }
+        String id = Long.toString(entry.rowId());
+        List<SheetRow> remaining = new ArrayList<>(entry.rows().size());
+        for (SheetRow row : entry.rows()) {
+            Set<String> ids = idsInSheets.get(row.sheetName());
+            if (ids == null) {
+                ids = existingIds.load(row.sheetName());
+                idsInSheets.put(row.sheetName(), ids);
+            }
+            if (!ids.contains(id)) {
+                remaining.add(row);
+            }
+        }
+        return remaining;
+    }
+
+    private static long readOffset(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    private static void writeOffset(Path file, long offset) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(offset).array());
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static byte[] encode(long rowId, long enqueuedAt, List<SheetRow> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(TYPE_ROWS);
+            out.writeByte(CODEC_VERSION);
+            out.writeLong(rowId);
+            out.writeLong(enqueuedAt);
+            out.writeShort(rows.size());
+            for (SheetRow row : rows) {
+                writeString(out, row.sheetName());
+                out.writeShort(row.values().size());
+                for (Object value : row.values()) {
+                    writeValue(out, value);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static Entry decode(long offset, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != TYPE_ROWS || in.readByte() != CODEC_VERSION) {
+            throw new IOException("Unsupported outbox record at offset " + offset);
+        }
+        long rowId = in.readLong();
+        long enqueuedAt = in.readLong();
+        int rowCount = in.readUnsignedShort();
+        List<SheetRow> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            String sheetName = readString(in);
+            int valueCount = in.readUnsignedShort();
+            List<Object> values = new ArrayList<>(valueCount);
+            for (int v = 0; v < valueCount; v++) {
+                values.add(readValue(in));
+            }
+            rows.add(new SheetRow(sheetName, values));
+        }
+        return new Entry(offset, -1, rowId, enqueuedAt, rows);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Boolean bool) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean(bool);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble(number.doubleValue());
+        } else {
+            out.writeByte(VALUE_STRING);
+            writeString(out, String.valueOf(value));
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case VALUE_BOOLEAN -> in.readBoolean();
+            case VALUE_LONG -> in.readLong();
+            case VALUE_DOUBLE -> in.readDouble();
+            case VALUE_STRING -> readString(in);
+            default -> throw new IOException("Unknown outbox value tag " + tag);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated outbox record");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the ids already present in a sheet's id column.
+     */
+    @FunctionalInterface
+    interface ExistingIds {
+        Set<String> load(String sheetName) throws Exception;
+    }
+
+    record Entry(long offset, long next, long rowId, long enqueuedAt, List<SheetRow> rows) {
+        Entry withNext(long next) {
+            return new Entry(offset, next, rowId, enqueuedAt, rows);
+        }
+    }
+}
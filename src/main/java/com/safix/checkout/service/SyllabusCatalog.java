@@ -0,0 +1,392 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.Course;
+import com.safix.checkout.model.Sector;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Immutable snapshot of the parsed course catalog. A new instance is built on every (re)load and published
+ * by {@link SyllabusService} in a single reference swap, so lookups never lock and never see a partial catalog.
+ */
+public final class SyllabusCatalog {
+
+    private static final int MEMO_SIZE = 1024;
+
+    private final long version;
+    private final Instant loadedAt;
+    private final long loadMillis;
+
+    private final String source;
+    private final Map<Integer, String> sectorNameByIndex;
+    private final Map<Integer, List<String>> sectorCoursesByIndex;
+    private final Map<String, Integer> courseToSectorByNormalized;
+    private final Map<String, String> courseFeeByNormalized;
+    private final Map<Integer, Integer> sectorContentRefs;
+    private final Map<Integer, Map<String, Integer>> sectionRefsBySector;
+    private final TextStore texts;
+
+    private final TokenIndex feeIndex;
+    private final String[] feeByIndex;
+    private final List<SectionLookup> sectionLookups = new ArrayList<>();
+    private final Map<Integer, SectionLookup> sectionLookupBySector = new HashMap<>();
+    private final List<SectionLookup> headingLookups = new ArrayList<>();
+    private final TokenIndex allHeadingsIndex;
+    private final int[] sectorByHeading;
+
+    private final List<Sector> sectors;
+    private final List<Course> courses;
+    private final Map<String, Integer> courseIdByNormalized = new HashMap<>();
+    private final TokenIndex courseNameIndex;
+    private final String[] sectorNameByCourseId;
+    private final int[] syllabusRefByCourseId;
+
+    private final ConcurrentMemo<String, String> feeMemo = new ConcurrentMemo<>(MEMO_SIZE);
+    private final ConcurrentMemo<String, String> sectorMemo = new ConcurrentMemo<>(MEMO_SIZE);
+    private final ConcurrentMemo<String, String> syllabusMemo = new ConcurrentMemo<>(MEMO_SIZE);
+    private final ConcurrentMemo<String, CourseMatch> courseIdMemo = new ConcurrentMemo<>(MEMO_SIZE);
+
+    SyllabusCatalog(long version, Instant loadedAt, long loadMillis, CatalogData data) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.loadMillis = loadMillis;
+        this.source = data.source;
+        this.sectorNameByIndex = Collections.unmodifiableMap(data.sectorNameByIndex);
+        this.sectorCoursesByIndex = Collections.unmodifiableMap(data.sectorCoursesByIndex);
+        this.courseToSectorByNormalized = Collections.unmodifiableMap(data.courseToSectorByNormalized);
+        this.courseFeeByNormalized = Collections.unmodifiableMap(data.courseFeeByNormalized);
+        this.sectorContentRefs = Collections.unmodifiableMap(data.sectorContentRefs);
+        this.sectionRefsBySector = Collections.unmodifiableMap(data.sectionRefsBySector);
+        this.texts = data.texts;
+
+        List<String> feeKeys = new ArrayList<>(this.courseFeeByNormalized.keySet());
+        this.feeIndex = new TokenIndex(feeKeys);
+        this.feeByIndex = new String[feeKeys.size()];
+        for (int i = 0; i < feeKeys.size(); i++) {
+            feeByIndex[i] = this.courseFeeByNormalized.get(feeKeys.get(i));
+        }
+
+        for (Map.Entry<Integer, Map<String, Integer>> entry : this.sectionRefsBySector.entrySet()) {
+            List<String> keys = new ArrayList<>(entry.getValue().keySet());
+            int[] refs = new int[keys.size()];
+            for (int i = 0; i < refs.length; i++) {
+                refs[i] = entry.getValue().get(keys.get(i));
+            }
+            SectionLookup lookup = new SectionLookup(new TokenIndex(keys), refs);
+            sectionLookups.add(lookup);
+            sectionLookupBySector.put(entry.getKey(), lookup);
+        }
+
+        List<String> allHeadings = new ArrayList<>();
+        List<Integer> headingSectors = new ArrayList<>();
+        for (Map.Entry<Integer, List<CatalogData.Heading>> entry : data.headingsBySector.entrySet()) {
+            List<CatalogData.Heading> sectorHeadings = entry.getValue();
+            List<String> headings = new ArrayList<>(sectorHeadings.size());
+            int[] refs = new int[sectorHeadings.size()];
+            for (int i = 0; i < refs.length; i++) {
+                headings.add(sectorHeadings.get(i).normalized());
+                refs[i] = sectorHeadings.get(i).sectionRef();
+            }
+            headingLookups.add(new SectionLookup(new TokenIndex(headings), refs));
+
+            for (String heading : headings) {
+                allHeadings.add(heading);
+                headingSectors.add(entry.getKey());
+            }
+        }
+
+        this.allHeadingsIndex = new TokenIndex(allHeadings);
+        this.sectorByHeading = new int[headingSectors.size()];
+        for (int i = 0; i < sectorByHeading.length; i++) {
+            sectorByHeading[i] = headingSectors.get(i);
+        }
+
+        // Everything a page needs per course is resolved once here, so requests carrying an id skip
+        // normalization and fuzzy matching entirely.
+        List<Sector> sectorList = new ArrayList<>();
+        List<Course> courseList = new ArrayList<>();
+        List<String> courseNames = new ArrayList<>();
+        for (Map.Entry<Integer, List<String>> entry : this.sectorCoursesByIndex.entrySet()) {
+            List<Integer> courseIds = new ArrayList<>();
+            for (String name : entry.getValue()) {
+                int id = courseList.size();
+                courseList.add(new Course(id, name, entry.getKey(), resolveFeeByCourse(name)));
+                courseIds.add(id);
+                String normalized = normalize(name);
+                courseNames.add(normalized);
+                courseIdByNormalized.putIfAbsent(normalized, id);
+            }
+            sectorList.add(new Sector(entry.getKey(),
+                    this.sectorNameByIndex.getOrDefault(entry.getKey(), "Course Syllabus"),
+                    List.copyOf(courseIds)));
+        }
+        this.sectors = List.copyOf(sectorList);
+        this.courses = List.copyOf(courseList);
+        this.courseNameIndex = new TokenIndex(courseNames);
+        this.sectorNameByCourseId = new String[courses.size()];
+        this.syllabusRefByCourseId = new int[courses.size()];
+        for (Course course : courses) {
+            sectorNameByCourseId[course.id()] = resolveSectorByCourse(course.name());
+            syllabusRefByCourseId[course.id()] = resolveSyllabusRef(course.name());
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    /**
+     * Where this snapshot came from: {@code text} when parsed from the source files, {@code snapshot}
+     * when served from the precompiled, memory-mapped catalog file.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public int getSectorCount() {
+        return sectorNameByIndex.size();
+    }
+
+    public int getCourseCount() {
+        return courses.size();
+    }
+
+    public List<Sector> getSectors() {
+        return sectors;
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    public boolean hasCourse(int courseId) {
+        return courseId >= 0 && courseId < courses.size();
+    }
+
+    /**
+     * Returns the course for an id from this catalog version, or {@code null} when the id is out of range.
+     */
+    public Course getCourse(int courseId) {
+        return hasCourse(courseId) ? courses.get(courseId) : null;
+    }
+
+    /**
+     * Maps a course display string to its id: exact (normalized) name first, then the closest course name
+     * using the same scoring as the other lookups. Returns {@code -1} when nothing matches.
+     */
+    public int resolveCourseId(String course) {
+        if (course == null || course.isBlank()) {
+            return -1;
+        }
+        return courseIdMemo.computeIfAbsent(course, this::findCourseId).id();
+    }
+
+    /**
+     * Id of the course whose normalized name equals {@code course}'s, or {@code -1}. Lookups by such an id
+     * return exactly what the string lookups return for that name.
+     */
+    public int exactCourseId(String course) {
+        if (course == null || course.isBlank()) {
+            return -1;
+        }
+        CourseMatch match = courseIdMemo.computeIfAbsent(course, this::findCourseId);
+        return match.exact() ? match.id() : -1;
+    }
+
+    /**
+     * What to store instead of an id when a course has to be found again later: its normalized name, or
+     * {@code null} for an unknown id. Ids follow the order of the course file and shift when a course is
+     * inserted or removed; {@link #exactCourseId} maps a key back to the current id.
+     */
+    public String getCourseKey(int courseId) {
+        return hasCourse(courseId) ? normalize(courses.get(courseId).name()) : null;
+    }
+
+    public String getFee(int courseId) {
+        return courses.get(courseId).fee();
+    }
+
+    public String getSectorName(int courseId) {
+        return sectorNameByCourseId[courseId];
+    }
+
+    public String getSyllabus(int courseId) {
+        int ref = syllabusRefByCourseId[courseId];
+        return ref == TextStore.NO_TEXT ? notFound(courses.get(courseId).name()) : texts.text(ref);
+    }
+
+    public String getSectorByCourse(String course) {
+        if (course == null) {
+            return resolveSectorByCourse(null);
+        }
+        return sectorMemo.computeIfAbsent(course, this::resolveSectorByCourse);
+    }
+
+    public String getSyllabusByCourse(String course) {
+        if (course == null) {
+            return resolveSyllabusByCourse(null);
+        }
+        return syllabusMemo.computeIfAbsent(course, this::resolveSyllabusByCourse);
+    }
+
+    public String getFeeByCourse(String course) {
+        if (course == null) {
+            return resolveFeeByCourse(null);
+        }
+        return feeMemo.computeIfAbsent(course, this::resolveFeeByCourse);
+    }
+
+    private String resolveSectorByCourse(String course) {
+        Integer sector = courseToSectorByNormalized.get(normalize(course));
+        if (sector == null) {
+            Integer inferredSector = inferSectorByCourseHeading(course);
+            if (inferredSector == null) {
+                return "Course Syllabus";
+            }
+            return sectorNameByIndex.getOrDefault(inferredSector, "Course Syllabus");
+        }
+        return sectorNameByIndex.getOrDefault(sector, "Course Syllabus");
+    }
+
+    private String resolveSyllabusByCourse(String course) {
+        if (course == null || course.isBlank()) {
+            return "Syllabus not found: course name is missing.";
+        }
+
+        int ref = resolveSyllabusRef(course);
+        return ref == TextStore.NO_TEXT ? notFound(course) : texts.text(ref);
+    }
+
+    private int resolveSyllabusRef(String course) {
+        String normalizedCourse = normalize(course);
+        Integer sector = courseToSectorByNormalized.get(normalizedCourse);
+
+        if (sector != null) {
+            Map<String, Integer> sections = sectionRefsBySector.getOrDefault(sector, Collections.emptyMap());
+            Integer sectionRef = sections.get(normalizedCourse);
+            if (sectionRef != null && !texts.isBlank(sectionRef)) {
+                return sectionRef;
+            }
+
+            int fuzzySection = findBestSectionForCourse(normalizedCourse, sectionLookupBySector.get(sector));
+            if (fuzzySection != TextStore.NO_TEXT) {
+                return fuzzySection;
+            }
+
+            Integer contentRef = sectorContentRefs.get(sector);
+            if (contentRef != null && !texts.isBlank(contentRef)) {
+                return contentRef;
+            }
+        }
+
+        for (SectionLookup sections : sectionLookups) {
+            int fuzzySection = findBestSectionForCourse(normalizedCourse, sections);
+            if (fuzzySection != TextStore.NO_TEXT) {
+                return fuzzySection;
+            }
+        }
+
+        return findSectionByHeadingAcrossSectors(course);
+    }
+
+    private static String notFound(String course) {
+        return "Syllabus not found for \"" + course + "\".";
+    }
+
+    private CourseMatch findCourseId(String course) {
+        String normalizedCourse = normalize(course);
+        Integer exact = courseIdByNormalized.get(normalizedCourse);
+        if (exact != null) {
+            return new CourseMatch(exact, true);
+        }
+        return new CourseMatch(courseNameIndex.bestMatch(normalizedCourse), false);
+    }
+
+    private String resolveFeeByCourse(String course) {
+        if (course == null || course.isBlank()) {
+            return "5000";
+        }
+
+        String normalizedCourse = normalize(course);
+        String exact = courseFeeByNormalized.get(normalizedCourse);
+        if (exact != null && !exact.isBlank()) {
+            return exact;
+        }
+
+        int best = feeIndex.bestMatch(normalizedCourse);
+        if (best >= 0) {
+            return feeByIndex[best];
+        }
+
+        return "5000";
+    }
+
+    private int findBestSectionForCourse(String normalizedCourse, SectionLookup sections) {
+        if (sections == null) {
+            return TextStore.NO_TEXT;
+        }
+        return sections.find(normalizedCourse);
+    }
+
+    private Integer inferSectorByCourseHeading(String course) {
+        if (course == null || course.isBlank()) {
+            return null;
+        }
+
+        int best = allHeadingsIndex.bestMatch(normalize(course));
+        return best >= 0 ? sectorByHeading[best] : null;
+    }
+
+    private int findSectionByHeadingAcrossSectors(String course) {
+        if (course == null || course.isBlank()) {
+            return TextStore.NO_TEXT;
+        }
+
+        String normalizedRequested = normalize(course);
+        for (SectionLookup headings : headingLookups) {
+            int section = headings.find(normalizedRequested);
+            if (section != TextStore.NO_TEXT && !texts.isBlank(section)) {
+                return section;
+            }
+        }
+
+        return TextStore.NO_TEXT;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT)
+                .replace("&", " and ")
+                .replaceAll("[^a-z0-9]+", " ")
+                .trim();
+    }
+
+    private record CourseMatch(int id, boolean exact) {
+    }
+
+    private final class SectionLookup {
+        private final TokenIndex index;
+        private final int[] sectionRefs;
+
+        private SectionLookup(TokenIndex index, int[] sectionRefs) {
+            this.index = index;
+            this.sectionRefs = sectionRefs;
+        }
+
+        private int find(String normalizedQuery) {
+            int best = index.bestMatch(normalizedQuery);
+            return best >= 0 ? sectionRefs[best] : TextStore.NO_TEXT;
+        }
+    }
+}
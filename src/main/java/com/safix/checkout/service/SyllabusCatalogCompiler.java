@@ -0,0 +1,37 @@
+package com.safix.checkout.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Build-time entry point that parses the syllabus text files from the working directory and writes the
+ * binary catalog snapshot (default {@code target/catalog.bin}). Run by the exec plugin during
+ * {@code mvn package}.
+ */
+public final class SyllabusCatalogCompiler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyllabusCatalogCompiler.class);
+
+    private SyllabusCatalogCompiler() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path target = Path.of(args.length > 0 ? args[0] : "target/catalog.bin");
+        byte[] sourceHash = CatalogSnapshotFile.sourceHash();
+        if (sourceHash == null) {
+            LOG.warn("Catalog snapshot skipped: no syllabus source files found in {}", System.getProperty("user.dir"));
+            return;
+        }
+
+        CatalogData data = new SyllabusCatalogLoader().parse();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        CatalogSnapshotFile.write(data, sourceHash, target);
+        LOG.info("Catalog snapshot written to {} ({} bytes, {} sectors, {} texts)",
+                target, Files.size(target), data.sectorNameByIndex.size(), data.texts.size());
+    }
+}
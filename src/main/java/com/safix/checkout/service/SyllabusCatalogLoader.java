@@ -0,0 +1,433 @@
+package com.safix.checkout.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses {@code website course.txt} and the sector syllabus files into a {@link SyllabusCatalog}.
+ * File contents and parsed sector sections are kept between loads, so a reload only re-reads and
+ * re-parses the files whose size or modification time changed.
+ */
+final class SyllabusCatalogLoader {
+
+    static final String COURSE_LIST_FILE = "website course.txt";
+    static final Map<Integer, String> SECTOR_FILES;
+
+    private static final Pattern SECTOR_LINE = Pattern.compile("^\\s*(\\d+)\\.\\s*(.+?)\\s*$");
+    private static final Pattern COURSE_HEADING = Pattern.compile("^\\s*\\d+\\s*[\\.)]\\s*(.+?)\\s*$");
+    private static final Pattern COURSE_FEE_PATTERN = Pattern.compile("(?im)\\b(?:fees?|course\\s*fee|tuition)\\b[^\\r\\n]{0,30}?(?:rs\\.?|inr|₹)?\\s*([0-9][0-9,]{2,})");
+    private static final Pattern RUPEE_FEE_PATTERN = Pattern.compile("(?im)(?:₹|rs\\.?|inr)\\s*([0-9][0-9,]{2,})");
+
+    static {
+        Map<Integer, String> files = new LinkedHashMap<>();
+        files.put(1, "BEAUTY SECTOR1.txt");
+        files.put(2, "IT Sector 2.txt");
+        files.put(3, "healthcare sector3.txt");
+        files.put(4, "construction and engineering ssksills sector4.txt");
+        files.put(5, "management n finance sector5.txt");
+        files.put(6, "media and entertain sector6.txt");
+        files.put(7, "hospitality and tourism sector7.txt");
+        files.put(8, "apparel and fashion design sector8.txt");
+        files.put(9, "electronic n hardware sector9.txt");
+        files.put(10, "logistic and suply chain sector 10.txt");
+        SECTOR_FILES = Collections.unmodifiableMap(files);
+    }
+
+    private final Map<String, SourceFile> sources = new HashMap<>();
+    private final Map<Integer, ParsedSector> parsedSectors = new HashMap<>();
+    private List<String> lastChangedFiles = List.of();
+
+    static List<String> sourceFiles() {
+        List<String> files = new ArrayList<>();
+        files.add(COURSE_LIST_FILE);
+        files.addAll(SECTOR_FILES.values());
+        return files;
+    }
+
+    synchronized SyllabusCatalog load(long version) {
+        long start = System.nanoTime();
+        CatalogData data = parse();
+        long loadMillis = (System.nanoTime() - start) / 1_000_000L;
+        return new SyllabusCatalog(version, Instant.now(), loadMillis, data);
+    }
+
+    /**
+     * Serves the catalog from a compiled snapshot file when it exists and was built from the current
+     * source files; returns {@code null} so the caller can fall back to {@link #load(long)} otherwise.
+     */
+    SyllabusCatalog loadSnapshot(Path snapshotFile, long version) {
+        long start = System.nanoTime();
+        CatalogData data = CatalogSnapshotFile.read(snapshotFile, CatalogSnapshotFile.sourceHash());
+        if (data == null) {
+            return null;
+        }
+        long loadMillis = (System.nanoTime() - start) / 1_000_000L;
+        return new SyllabusCatalog(version, Instant.now(), loadMillis, data);
+    }
+
+    synchronized CatalogData parse() {
+        List<String> changed = new ArrayList<>();
+
+        Map<Integer, String> sectorNameByIndex = new LinkedHashMap<>();
+        Map<Integer, List<String>> sectorCoursesByIndex = new LinkedHashMap<>();
+        Map<String, Integer> courseToSectorByNormalized = new HashMap<>();
+        Map<String, String> courseFeeByNormalized = new HashMap<>();
+        Map<Integer, String> sectorContentCache = new HashMap<>();
+        Map<Integer, ParsedSector> sectorsInOrder = new HashMap<>();
+
+        String courseList = readSource(COURSE_LIST_FILE, changed);
+        if (courseList != null) {
+            parseWebsiteCourseList(courseList, sectorNameByIndex, sectorCoursesByIndex, courseToSectorByNormalized);
+        }
+
+        for (Map.Entry<Integer, String> entry : SECTOR_FILES.entrySet()) {
+            Integer sectorIndex = entry.getKey();
+            String content = readSource(entry.getValue(), changed);
+            if (content == null) {
+                parsedSectors.remove(sectorIndex);
+                continue;
+            }
+
+            List<String> expectedCourses = sectorCoursesByIndex.getOrDefault(sectorIndex, Collections.emptyList());
+            ParsedSector parsed = parsedSectors.get(sectorIndex);
+            if (parsed == null || !parsed.content().equals(content) || !parsed.expectedCourses().equals(expectedCourses)) {
+                parsed = new ParsedSector(content, List.copyOf(expectedCourses),
+                        Collections.unmodifiableMap(extractSections(content, expectedCourses)),
+                        extractHeadingSections(content));
+                parsedSectors.put(sectorIndex, parsed);
+            }
+
+            sectorContentCache.put(sectorIndex, content);
+            sectorsInOrder.put(sectorIndex, parsed);
+            populateFeesFromSections(parsed.sections(), courseFeeByNormalized);
+        }
+
+        applyDefaultCourseFees(sectorCoursesByIndex, courseFeeByNormalized);
+        lastChangedFiles = List.copyOf(changed);
+
+        TextStore.Heap texts = new TextStore.Heap();
+        Map<Integer, Integer> sectorContentRefs = new HashMap<>();
+        Map<Integer, Map<String, Integer>> sectionRefsBySector = new HashMap<>();
+        Map<Integer, List<CatalogData.Heading>> headingsBySector = new LinkedHashMap<>();
+        for (Map.Entry<Integer, String> entry : sectorContentCache.entrySet()) {
+            Integer sectorIndex = entry.getKey();
+            ParsedSector parsed = sectorsInOrder.get(sectorIndex);
+
+            Map<String, Integer> sectionRefs = new HashMap<>();
+            for (Map.Entry<String, String> section : parsed.sections().entrySet()) {
+                sectionRefs.put(section.getKey(), texts.add(section.getValue()));
+            }
+            sectionRefsBySector.put(sectorIndex, sectionRefs);
+
+            List<CatalogData.Heading> headings = new ArrayList<>();
+            for (Map.Entry<String, String> heading : parsed.headings()) {
+                headings.add(new CatalogData.Heading(heading.getKey(), texts.add(heading.getValue())));
+            }
+            if (!entry.getValue().isBlank()) {
+                headingsBySector.put(sectorIndex, headings);
+            }
+            sectorContentRefs.put(sectorIndex, texts.add(entry.getValue()));
+        }
+
+        return new CatalogData(CatalogData.SOURCE_TEXT, sectorNameByIndex, sectorCoursesByIndex,
+                courseToSectorByNormalized, courseFeeByNormalized, sectorContentRefs,
+                sectionRefsBySector, headingsBySector, texts);
+    }
+
+    synchronized List<String> getLastChangedFiles() {
+        return lastChangedFiles;
+    }
+
+    private String readSource(String filename, List<String> changed) {
+        Path path = resolvePath(filename);
+        SourceFile previous = sources.get(filename);
+        if (path == null) {
+            if (previous != null) {
+                sources.remove(filename);
+                changed.add(filename);
+            }
+            return null;
+        }
+
+        try {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            long size = Files.size(path);
+            if (previous != null && previous.path().equals(path)
+                    && previous.lastModified() == lastModified && previous.size() == size) {
+                return previous.content();
+            }
+
+            String content = Files.readString(path, StandardCharsets.UTF_8);
+            sources.put(filename, new SourceFile(path, lastModified, size, content));
+            changed.add(filename);
+            return content;
+        } catch (IOException ignored) {
+            // Keep serving the last good copy (e.g. while an editor is mid-save).
+            return previous == null ? null : previous.content();
+        }
+    }
+
+    private void parseWebsiteCourseList(String content,
+                                        Map<Integer, String> sectorNameByIndex,
+                                        Map<Integer, List<String>> sectorCoursesByIndex,
+                                        Map<String, Integer> courseToSectorByNormalized) {
+        Integer currentSector = null;
+        for (String rawLine : content.lines().toList()) {
+            String line = rawLine == null ? "" : rawLine.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            Matcher sectorMatcher = SECTOR_LINE.matcher(line);
+            if (sectorMatcher.matches()) {
+                currentSector = Integer.parseInt(sectorMatcher.group(1));
+                String sectorName = sectorMatcher.group(2).trim();
+                sectorNameByIndex.put(currentSector, sectorName);
+                sectorCoursesByIndex.putIfAbsent(currentSector, new ArrayList<>());
+                continue;
+            }
+
+            if (currentSector == null) {
+                continue;
+            }
+
+            String course = extractBulletText(line);
+            if (course == null || course.isBlank()) {
+                continue;
+            }
+
+            sectorCoursesByIndex.get(currentSector).add(course);
+            courseToSectorByNormalized.put(SyllabusCatalog.normalize(course), currentSector);
+        }
+    }
+
+    private String extractBulletText(String line) {
+        String cleaned = line
+                .replaceFirst("^(â€¢|•|\\-|\\*)\\s*", "")
+                .trim();
+
+        if (cleaned.equals(line)) {
+            return null;
+        }
+        return cleaned;
+    }
+
+    private void populateFeesFromSections(Map<String, String> sections, Map<String, String> courseFeeByNormalized) {
+        for (Map.Entry<String, String> entry : sections.entrySet()) {
+            String fee = extractFee(entry.getValue());
+            if (fee != null) {
+                courseFeeByNormalized.putIfAbsent(entry.getKey(), fee);
+            }
+        }
+    }
+
+    private String extractFee(String sectionText) {
+        if (sectionText == null || sectionText.isBlank()) {
+            return null;
+        }
+
+        Matcher taggedMatcher = COURSE_FEE_PATTERN.matcher(sectionText);
+        if (taggedMatcher.find()) {
+            return sanitizeAmount(taggedMatcher.group(1));
+        }
+
+        Matcher rupeeMatcher = RUPEE_FEE_PATTERN.matcher(sectionText);
+        if (rupeeMatcher.find()) {
+            return sanitizeAmount(rupeeMatcher.group(1));
+        }
+
+        return null;
+    }
+
+    private String sanitizeAmount(String rawAmount) {
+        if (rawAmount == null || rawAmount.isBlank()) {
+            return null;
+        }
+        String digits = rawAmount.replaceAll("[^0-9]", "");
+        return digits.isBlank() ? null : digits;
+    }
+
+    private void applyDefaultCourseFees(Map<Integer, List<String>> sectorCoursesByIndex,
+                                        Map<String, String> courseFeeByNormalized) {
+        Map<Integer, List<String>> sectorFees = new HashMap<>();
+        sectorFees.put(1, List.of("4999", "7999", "12999", "6999", "6999", "6999", "6999", "6999"));
+        sectorFees.put(2, List.of("3499", "6999", "6999", "6999", "6999", "6999", "6999", "6999"));
+        sectorFees.put(3, List.of("6999", "7999", "7999", "7999", "6999", "6999", "6999", "6999"));
+        sectorFees.put(4, List.of("6999", "6999", "6999", "6999", "7999", "7999", "7999", "7999"));
+        sectorFees.put(5, List.of("9999", "5999", "7999", "6999", "5999", "6999", "6999", "7999"));
+        sectorFees.put(6, List.of("8999", "8999", "8999", "7999", "7999", "8999", "6999", "8999"));
+        sectorFees.put(7, List.of("8999", "8999", "7999", "6999", "6999", "7999", "6999", "7999"));
+        sectorFees.put(8, List.of("8999", "6999", "6999", "6999", "7999", "7999", "7999", "8999"));
+        sectorFees.put(9, List.of("6999", "7999", "7999", "7999", "8999", "8999", "7999", "7999"));
+        sectorFees.put(10, List.of("7999", "6999", "6999", "6999", "6999", "7999", "6999", "6999"));
+
+        for (Map.Entry<Integer, List<String>> entry : sectorFees.entrySet()) {
+            Integer sectorIndex = entry.getKey();
+            List<String> fees = entry.getValue();
+            List<String> courses = sectorCoursesByIndex.getOrDefault(sectorIndex, Collections.emptyList());
+
+            for (int i = 0; i < courses.size() && i < fees.size(); i++) {
+                String normalizedCourse = SyllabusCatalog.normalize(courses.get(i));
+                courseFeeByNormalized.putIfAbsent(normalizedCourse, fees.get(i));
+            }
+        }
+    }
+
+    /**
+     * Every numbered heading in a sector file with the block of lines up to the next heading; used for
+     * requests that do not match any course from the website list.
+     */
+    private List<Map.Entry<String, String>> extractHeadingSections(String content) {
+        List<Map.Entry<String, String>> headings = new ArrayList<>();
+        if (content.isBlank()) {
+            return headings;
+        }
+
+        String[] lines = content.split("\\R");
+        List<Integer> starts = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            Matcher matcher = COURSE_HEADING.matcher(lines[i] == null ? "" : lines[i]);
+            if (matcher.matches()) {
+                starts.add(i);
+                names.add(SyllabusCatalog.normalize(matcher.group(1)));
+            }
+        }
+
+        for (int h = 0; h < starts.size(); h++) {
+            int start = starts.get(h);
+            int end = h + 1 < starts.size() ? starts.get(h + 1) : lines.length;
+            StringBuilder block = new StringBuilder();
+            for (int i = start; i < end; i++) {
+                block.append(lines[i]).append(System.lineSeparator());
+            }
+            String section = block.toString().trim();
+            headings.add(new AbstractMap.SimpleImmutableEntry<>(names.get(h), section.isBlank() ? null : section));
+        }
+        return headings;
+    }
+
+    private Map<String, String> extractSections(String content, List<String> expectedCourses) {
+        Map<String, String> sections = new HashMap<>();
+        if (content == null || content.isBlank()) {
+            return sections;
+        }
+
+        List<String> lines = Arrays.asList(content.split("\\R"));
+        String currentCourse = null;
+        StringBuilder currentBlock = new StringBuilder();
+
+        for (String line : lines) {
+            Matcher matcher = COURSE_HEADING.matcher(line == null ? "" : line);
+            if (matcher.matches()) {
+                String candidate = matcher.group(1).trim();
+                String matchedExpectedCourse = findBestExpectedCourse(candidate, expectedCourses);
+                if (matchedExpectedCourse != null) {
+                    saveSection(sections, currentCourse, currentBlock);
+                    currentCourse = matchedExpectedCourse;
+                    currentBlock = new StringBuilder();
+                    currentBlock.append(line).append(System.lineSeparator());
+                    continue;
+                }
+            }
+
+            if (currentCourse != null) {
+                currentBlock.append(line).append(System.lineSeparator());
+            }
+        }
+
+        saveSection(sections, currentCourse, currentBlock);
+        return sections;
+    }
+
+    private void saveSection(Map<String, String> sections, String course, StringBuilder block) {
+        if (course == null) {
+            return;
+        }
+        String text = block.toString().trim();
+        if (!text.isBlank()) {
+            sections.put(SyllabusCatalog.normalize(course), text);
+        }
+    }
+
+    private String findBestExpectedCourse(String candidate, List<String> expectedCourses) {
+        if (expectedCourses == null || expectedCourses.isEmpty()) {
+            return null;
+        }
+
+        String normalizedCandidate = SyllabusCatalog.normalize(candidate);
+        String bestCourse = null;
+        int bestScore = -1;
+
+        for (String expected : expectedCourses) {
+            int score = similarityScore(normalizedCandidate, SyllabusCatalog.normalize(expected));
+            if (score > bestScore) {
+                bestScore = score;
+                bestCourse = expected;
+            }
+        }
+
+        return bestScore >= 4 ? bestCourse : null;
+    }
+
+    private int similarityScore(String a, String b) {
+        if (a == null || b == null || a.isBlank() || b.isBlank()) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 100;
+        }
+
+        int score = 0;
+        if (a.contains(b) || b.contains(a)) {
+            score += 30;
+        }
+
+        Set<String> tokensA = new HashSet<>(Arrays.asList(a.split("\\s+")));
+        Set<String> tokensB = new HashSet<>(Arrays.asList(b.split("\\s+")));
+        tokensA.remove("");
+        tokensB.remove("");
+
+        int overlap = 0;
+        for (String token : tokensA) {
+            if (tokensB.contains(token)) {
+                overlap++;
+            }
+        }
+        score += overlap * 5;
+        return score;
+    }
+
+    static Path resolvePath(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return null;
+        }
+
+        Path path = Path.of(filename);
+        if (Files.exists(path)) {
+            return path;
+        }
+
+        Path userDirPath = Path.of(System.getProperty("user.dir"), filename);
+        if (Files.exists(userDirPath)) {
+            return userDirPath;
+        }
+
+        return null;
+    }
+
+    private record SourceFile(Path path, long lastModified, long size, String content) {
+    }
+
+    private record ParsedSector(String content,
+                                List<String> expectedCourses,
+                                Map<String, String> sections,
+                                List<Map.Entry<String, String>> headings) {
+    }
+}
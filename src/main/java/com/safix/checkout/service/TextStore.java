@@ -0,0 +1,97 @@
+package com.safix.checkout.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Section and sector texts referenced by integer id. Text parsed at runtime lives on the heap;
+ * a precompiled snapshot serves slices of its memory-mapped file and decodes them on access.
+ */
+abstract class TextStore {
+
+    static final int NO_TEXT = -1;
+
+    abstract String text(int ref);
+
+    abstract int size();
+
+    boolean isBlank(int ref) {
+        String text = text(ref);
+        return text == null || text.isBlank();
+    }
+
+    static final class Heap extends TextStore {
+        private final List<String> texts = new ArrayList<>();
+        private final Map<String, Integer> refs = new HashMap<>();
+
+        /**
+         * Adds a text, returning the existing reference when an identical text was already stored.
+         */
+        int add(String text) {
+            if (text == null) {
+                return NO_TEXT;
+            }
+            return refs.computeIfAbsent(text, key -> {
+                texts.add(key);
+                return texts.size() - 1;
+            });
+        }
+
+        @Override
+        String text(int ref) {
+            return ref == NO_TEXT ? null : texts.get(ref);
+        }
+
+        @Override
+        int size() {
+            return texts.size();
+        }
+    }
+
+    static final class Mapped extends TextStore {
+        private final ByteBuffer region;
+        private final int[] offsets;
+        private final int[] lengths;
+
+        Mapped(ByteBuffer region, int[] offsets, int[] lengths) {
+            this.region = region;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        @Override
+        String text(int ref) {
+            if (ref == NO_TEXT) {
+                return null;
+            }
+            return StandardCharsets.UTF_8.decode(region.slice(offsets[ref], lengths[ref])).toString();
+        }
+
+        @Override
+        boolean isBlank(int ref) {
+            if (ref == NO_TEXT) {
+                return true;
+            }
+            // Scan ASCII bytes in place; only decode when a multi-byte character comes first.
+            for (int i = offsets[ref], end = offsets[ref] + lengths[ref]; i < end; i++) {
+                byte b = region.get(i);
+                if (b < 0) {
+                    return super.isBlank(ref);
+                }
+                if (!Character.isWhitespace((char) b)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int size() {
+            return offsets.length;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.safix.checkout.service;
+
+import java.util.*;
+
+/**
+ * Inverted token index over a fixed list of normalized keys.
+ * Reproduces SyllabusService's similarity scoring (exact match 100, substring 30, +5 per shared token)
+ * without re-splitting the keys on every lookup. Ties resolve to the earliest key, like a linear scan.
+ */
+final class TokenIndex {
+
+    static final int MIN_SCORE = 4;
+
+    private static final int[] NO_POSTINGS = new int[0];
+
+    private final String[] keys;
+    private final Map<String, int[]> postings;
+
+    TokenIndex(List<String> normalizedKeys) {
+        this.keys = normalizedKeys.toArray(new String[0]);
+
+        Map<String, List<Integer>> building = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            for (String token : tokens(keys[i])) {
+                building.computeIfAbsent(token, ignored -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> compact = new HashMap<>(building.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : building.entrySet()) {
+            List<Integer> ids = entry.getValue();
+            int[] array = new int[ids.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = ids.get(i);
+            }
+            compact.put(entry.getKey(), array);
+        }
+        this.postings = compact;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    String key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Returns the index of the best scoring key, or -1 when no key reaches {@link #MIN_SCORE}.
+     */
+    int bestMatch(String normalizedQuery) {
+        if (normalizedQuery == null || normalizedQuery.isBlank() || keys.length == 0) {
+            return -1;
+        }
+
+        int[] overlap = new int[keys.length];
+        for (String token : tokens(normalizedQuery)) {
+            for (int index : postings.getOrDefault(token, NO_POSTINGS)) {
+                overlap[index]++;
+            }
+        }
+
+        int bestIndex = -1;
+        int bestScore = -1;
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            if (key.isBlank()) {
+                continue;
+            }
+            // Without shared tokens a key can score at most 30 (substring), which cannot beat an earlier 30+.
+            if (overlap[i] == 0 && bestScore >= 30) {
+                continue;
+            }
+
+            int score;
+            if (overlap[i] > 0 && key.equals(normalizedQuery)) {
+                score = 100;
+            } else {
+                score = overlap[i] * 5;
+                if (key.contains(normalizedQuery) || normalizedQuery.contains(key)) {
+                    score += 30;
+                }
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+        }
+
+        return bestScore >= MIN_SCORE ? bestIndex : -1;
+    }
+
+    static Set<String> tokens(String normalized) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean boundary = i == normalized.length() || isRegexWhitespace(normalized.charAt(i));
+            if (boundary) {
+                if (start >= 0) {
+                    tokens.add(normalized.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,55 @@
+package com.safix.checkout.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link IdGenerator#nextId} against the {@code System.currentTimeMillis()} ids it replaced, on one
+ * thread and on four contending threads. Not part of the test run; start it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.safix.checkout.service.IdGeneratorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private final IdGenerator generator = new IdGenerator(1);
+
+    @Benchmark
+    @Threads(1)
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long idGenerator() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long currentTimeMillisContended() {
+        return System.currentTimeMillis();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long idGeneratorContended() {
+        return generator.nextId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
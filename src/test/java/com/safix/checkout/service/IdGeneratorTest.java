@@ -0,0 +1,92 @@
+package com.safix.checkout.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 100_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        IdGenerator generator = new IdGenerator(7);
+        long[][] ids = generateConcurrently(generator);
+
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 1; i < PER_THREAD; i++) {
+                assertTrue(ids[t][i] > ids[t][i - 1], "thread " + t + " went backwards at " + i);
+            }
+        }
+        assertDistinct(ids);
+    }
+
+    @Test
+    void idsFromDifferentNodesNeverCollide() throws Exception {
+        long[][] first = generateConcurrently(new IdGenerator(1));
+        long[][] second = generateConcurrently(new IdGenerator(2));
+        long[][] both = Arrays.copyOf(first, THREADS * 2);
+        System.arraycopy(second, 0, both, THREADS, THREADS);
+        assertDistinct(both);
+    }
+
+    @Test
+    void idCarriesNodeAndTimestamp() {
+        IdGenerator generator = new IdGenerator(1023);
+        Instant before = Instant.now().minusMillis(1);
+        long id = generator.nextId();
+        assertEquals(1023, (id >>> 12) & 1023);
+        assertEquals(1023, generator.getNodeId());
+        Instant at = IdGenerator.timestampOf(id);
+        assertTrue(!at.isBefore(before) && Duration.between(before, at).toMillis() < 5_000, "timestamp " + at);
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(1024));
+    }
+
+    private static void assertDistinct(long[][] ids) {
+        long[] all = Arrays.stream(ids).flatMapToLong(Arrays::stream).sorted().toArray();
+        assertTrue(all[0] > 0, "ids are positive");
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i] != all[i - 1], "duplicate id " + all[i]);
+        }
+    }
+
+    private static long[][] generateConcurrently(IdGenerator generator) throws Exception {
+        long[][] ids = new long[THREADS][PER_THREAD];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long[] mine = ids[t];
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < PER_THREAD; i++) {
+                    mine[i] = generator.nextId();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return ids;
+    }
+}
@@ -0,0 +1,134 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.FakeSmtpStats;
+import com.safix.checkout.model.MailDispatcherStats;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailDispatcherTest {
+
+    private static final int MESSAGES = 25;
+
+    private FakeSmtpServer server;
+    private MailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void sendsABatchOverOneConnection() throws Exception {
+        JavaMailSenderImpl sender = start(0, 100);
+
+        sendAll(sender);
+
+        FakeSmtpStats received = server.getStats();
+        assertEquals(MESSAGES, received.messages());
+        assertEquals(1, received.connections());
+        MailDispatcherStats stats = dispatcher.getStats();
+        assertEquals(MESSAGES, stats.sent());
+        assertEquals(0, stats.failed());
+        assertEquals(1, stats.connectionsOpened());
+        assertEquals((double) (MESSAGES - 1) / MESSAGES, stats.connectionReuseRatio(), 1e-9);
+    }
+
+    @Test
+    void reconnectsWhenTheServerEndsTheSessionAtItsCap() throws Exception {
+        // The server allows 10 messages per session and answers the 11th MAIL FROM with a 421
+        JavaMailSenderImpl sender = start(10, 100);
+
+        sendAll(sender);
+
+        FakeSmtpStats received = server.getStats();
+        assertEquals(MESSAGES, received.messages());
+        assertEquals(2, received.refusedOverLimit());
+        assertEquals(3, received.connections());
+        MailDispatcherStats stats = dispatcher.getStats();
+        assertEquals(MESSAGES, stats.sent());
+        assertEquals(0, stats.failed());
+        assertEquals(3, stats.connectionsOpened());
+        assertEquals(2, stats.connectionFailures());
+    }
+
+    @Test
+    void closesTheConnectionAtItsOwnCapBeforeTheServerRefuses() throws Exception {
+        JavaMailSenderImpl sender = start(10, 10);
+
+        sendAll(sender);
+
+        FakeSmtpStats received = server.getStats();
+        assertEquals(MESSAGES, received.messages());
+        assertEquals(0, received.refusedOverLimit());
+        assertEquals(3, received.connections());
+        MailDispatcherStats stats = dispatcher.getStats();
+        assertEquals(MESSAGES, stats.sent());
+        assertEquals(3, stats.connectionsOpened());
+        assertEquals(0, stats.connectionFailures());
+    }
+
+    /**
+     * Starts a fake server with the given per-session cap (0 for none) and a single-connection dispatcher that
+     * closes its connection after {@code dispatcherCap} messages, with no latency and no rate limit to speak of.
+     */
+    private JavaMailSenderImpl start(int serverCap, int dispatcherCap) throws Exception {
+        server = new FakeSmtpServer();
+        ReflectionTestUtils.setField(server, "enabled", true);
+        ReflectionTestUtils.setField(server, "port", 0);
+        ReflectionTestUtils.setField(server, "threads", 4);
+        ReflectionTestUtils.setField(server, "handshakeLatencyMillis", 0L);
+        ReflectionTestUtils.setField(server, "messageLatencyMillis", 0L);
+        ReflectionTestUtils.setField(server, "maxMessagesPerConnection", serverCap);
+        ReflectionTestUtils.setField(server, "dropRate", 0.0);
+        ReflectionTestUtils.setField(server, "seed", 42L);
+        server.start();
+
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(server.getPort());
+
+        dispatcher = new MailDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "connections", 1);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", MESSAGES);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", MESSAGES);
+        ReflectionTestUtils.setField(dispatcher, "maxPerMinute", 60_000.0);
+        ReflectionTestUtils.setField(dispatcher, "burst", MESSAGES);
+        ReflectionTestUtils.setField(dispatcher, "maxMessagesPerConnection", dispatcherCap);
+        ReflectionTestUtils.setField(dispatcher, "idleCloseSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "mailSender", sender);
+        dispatcher.start();
+        return sender;
+    }
+
+    private void sendAll(JavaMailSenderImpl sender) throws Exception {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            MimeMessage message = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false);
+            helper.setFrom("receipts@example.com");
+            helper.setTo("student" + i + "@example.com");
+            helper.setSubject("Receipt " + i);
+            helper.setText("Registration " + i, false);
+            results.add(dispatcher.submit(message));
+        }
+        for (CompletableFuture<Void> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
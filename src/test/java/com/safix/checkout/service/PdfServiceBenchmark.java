@@ -0,0 +1,90 @@
+package com.safix.checkout.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.safix.checkout.model.Course;
+import com.safix.checkout.model.Registration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receipts per second and bytes allocated per receipt: {@link PdfService}'s template stamping against the
+ * layout {@code Document} it replaced, which laid out every paragraph, header and footer included, for each
+ * receipt. Needs the syllabus text files in the working directory; start it from the project root with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.safix.checkout.service.PdfServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfServiceBenchmark {
+
+    private PdfService pdfService;
+    private Registration registration;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyllabusService syllabusService = PdfServiceTest.newSyllabusService();
+        pdfService = PdfServiceTest.newPdfService(syllabusService);
+        Course course = syllabusService.getCatalog().getCourses().get(0);
+        registration = PdfServiceTest.registration(1234567890123L, course);
+    }
+
+    @Benchmark
+    public byte[] templateStamping() {
+        return pdfService.generateReceipt(registration);
+    }
+
+    @Benchmark
+    public byte[] layoutDocument() {
+        return layoutReceipt(registration);
+    }
+
+    /**
+     * The receipt as it was built before the template: a layout {@code Document} of paragraphs.
+     */
+    private static byte[] layoutReceipt(Registration reg) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(baos));
+        Document document = new Document(pdf);
+        document.add(new Paragraph("UNIVERSAL SKILL DEVELOPMENT CENTRE")
+                .setFontSize(24)
+                .setBold()
+                .setTextAlignment(TextAlignment.CENTER));
+        document.add(new Paragraph("PAYMENT RECEIPT").setFontSize(16).setTextAlignment(TextAlignment.CENTER));
+        document.add(new Paragraph("\n"));
+        document.add(new Paragraph("Receipt ID: " + reg.getId()));
+        document.add(new Paragraph("Name: " + reg.getName()));
+        document.add(new Paragraph("Email: " + reg.getEmail()));
+        document.add(new Paragraph("WhatsApp: " + reg.getWhatsapp()));
+        document.add(new Paragraph("Date: " + reg.getRegisteredAt().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"))));
+        document.add(new Paragraph("\n"));
+        document.add(new Paragraph("Amount Paid: ₹4999").setBold());
+        document.add(new Paragraph("\n"));
+        document.add(new Paragraph("Thank you for your purchase!").setTextAlignment(TextAlignment.CENTER));
+        document.close();
+        return baos.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PdfServiceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.safix.checkout.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.safix.checkout.model.Course;
+import com.safix.checkout.model.Registration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfServiceTest {
+
+    private SyllabusService syllabusService;
+    private PdfService pdfService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        syllabusService = newSyllabusService();
+        pdfService = newPdfService(syllabusService);
+    }
+
+    @Test
+    void receiptShowsTheCourseFeeFromTheCatalog() throws Exception {
+        // Not the upi.course.amount fallback, so the fee can only have come from the catalog
+        Course course = coursesNotPricedAt("4999").get(0);
+        String text = text(pdfService.generateReceipt(registration(1, course)));
+
+        assertTrue(text.contains("PAYMENT RECEIPT"), text);
+        assertTrue(text.contains("Student 1"), text);
+        assertTrue(text.contains(course.name()), text);
+        assertTrue(text.contains("INR " + course.fee()), text);
+    }
+
+    @Test
+    void eachReceiptStartsFromTheUntouchedTemplate() throws Exception {
+        List<Course> courses = coursesNotPricedAt("4999");
+        Course first = courses.get(0);
+        Course second = courses.stream().filter(c -> !c.fee().equals(first.fee())).findFirst().orElseThrow();
+
+        // Same thread, so the second receipt is stamped onto the same parsed template
+        pdfService.generateReceipt(registration(1, first));
+        String text = text(pdfService.generateReceipt(registration(2, second)));
+
+        assertTrue(text.contains("Student 2"), text);
+        assertTrue(text.contains("INR " + second.fee()), text);
+        assertFalse(text.contains("Student 1"), text);
+        assertFalse(text.contains("INR " + first.fee()), text);
+    }
+
+    static SyllabusService newSyllabusService() {
+        SyllabusService syllabusService = new SyllabusService();
+        // Parse the syllabus text files in the working directory rather than a build snapshot
+        ReflectionTestUtils.setField(syllabusService, "snapshotPath", "");
+        syllabusService.init();
+        return syllabusService;
+    }
+
+    static PdfService newPdfService(SyllabusService syllabusService) throws Exception {
+        PdfService pdfService = new PdfService();
+        ReflectionTestUtils.setField(pdfService, "syllabusService", syllabusService);
+        ReflectionTestUtils.setField(pdfService, "defaultAmount", "4999");
+        ReflectionTestUtils.setField(pdfService, "fontPath", "");
+        ReflectionTestUtils.setField(pdfService, "boldFontPath", "");
+        pdfService.init();
+        return pdfService;
+    }
+
+    static Registration registration(long id, Course course) {
+        Registration reg = new Registration();
+        reg.setId(id);
+        reg.setName("Student " + id);
+        reg.setWhatsapp("9876543210");
+        reg.setEmail("student" + id + "@example.com");
+        reg.setSelectedCourse(course.name());
+        reg.setCourseId(course.id());
+        reg.setRegisteredAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        return reg;
+    }
+
+    private List<Course> coursesNotPricedAt(String fee) {
+        List<Course> courses = syllabusService.getCatalog().getCourses().stream()
+                .filter(c -> c.fee() != null && !c.fee().isBlank() && !c.fee().equals(fee))
+                .toList();
+        assertFalse(courses.isEmpty(), "no course with its own fee in the catalog");
+        return courses;
+    }
+
+    private static String text(byte[] pdf) throws Exception {
+        assertTrue(pdf.length > 0, "no PDF generated");
+        PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+        try {
+            assertEquals(1, document.getNumberOfPages());
+            return PdfTextExtractor.getTextFromPage(document.getFirstPage());
+        } finally {
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.safix.checkout.service;
+
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning an encoded QR matrix into an image: {@link QrRenderer} against the
+ * {@code MatrixToImageWriter.writeToStream} (BufferedImage + ImageIO) path it replaced. Both start from an
+ * already encoded matrix, so the QR encoding is left out; that includes ZXing's scaling of the old path's
+ * matrix to {@code size}, which flatters the old path slightly. Runs with the GC profiler, for bytes/op
+ * ({@code gc.alloc.rate.norm}):
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.safix.checkout.service.QrRendererBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QrRendererBenchmark {
+
+    @Param({"300", "1024"})
+    public int size;
+
+    private BitMatrix modules;
+    private BitMatrix scaled;
+
+    @Setup
+    public void encode() throws Exception {
+        modules = QrRendererTest.encode(QrRendererTest.PAYLOAD, 0, ErrorCorrectionLevel.L);
+        scaled = QrRendererTest.encode(QrRendererTest.PAYLOAD, size, ErrorCorrectionLevel.L);
+    }
+
+    @Benchmark
+    public byte[] directPng() {
+        return QrRenderer.png(modules, size);
+    }
+
+    @Benchmark
+    public byte[] directSvg() {
+        return QrRenderer.svg(modules, size);
+    }
+
+    @Benchmark
+    public byte[] imageIoPng() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(scaled, "PNG", out);
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QrRendererBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
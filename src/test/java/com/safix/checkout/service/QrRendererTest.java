@@ -0,0 +1,100 @@
+package com.safix.checkout.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QrRendererTest {
+
+    static final String PAYLOAD = "upi://pay?pa=universalskills%40upi&pn=Universal+Skills&am=4999&cu=INR"
+            + "&tn=Elite+Course+Payment";
+    private static final int[] SIZES = {64, 150, 299, 300, 301, 512, 1024};
+    private static final Pattern RUN = Pattern.compile("M(\\d+) (\\d+)h(\\d+)v1h-(\\d+)z");
+
+    @Test
+    void pngMatchesMatrixToImageWriterPixelForPixel() throws Exception {
+        for (ErrorCorrectionLevel ecc : ErrorCorrectionLevel.values()) {
+            BitMatrix modules = encode(PAYLOAD, 0, ecc);
+            for (int size : SIZES) {
+                String variant = ecc + "/" + size;
+                BufferedImage actual = ImageIO.read(new ByteArrayInputStream(QrRenderer.png(modules, size)));
+                BufferedImage expected = MatrixToImageWriter.toBufferedImage(encode(PAYLOAD, size, ecc));
+                assertNotNull(actual, variant + " is not a readable PNG");
+                assertEquals(expected.getWidth(), actual.getWidth(), variant + " width");
+                assertEquals(expected.getHeight(), actual.getHeight(), variant + " height");
+                int differing = 0;
+                for (int y = 0; y < expected.getHeight(); y++) {
+                    for (int x = 0; x < expected.getWidth(); x++) {
+                        if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                            differing++;
+                        }
+                    }
+                }
+                assertEquals(0, differing, variant + " differing pixels");
+            }
+        }
+    }
+
+    @Test
+    void svgDrawsExactlyTheDarkModules() throws Exception {
+        BitMatrix modules = encode(PAYLOAD, 0, ErrorCorrectionLevel.M);
+        int width = modules.getWidth();
+        byte[] svg = QrRenderer.svg(modules, 300);
+
+        Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(svg)).getDocumentElement();
+        assertEquals("svg", root.getTagName());
+        assertEquals("300", root.getAttribute("width"));
+        assertEquals("300", root.getAttribute("height"));
+        assertEquals("0 0 " + width + " " + width, root.getAttribute("viewBox"));
+        String path = ((Element) root.getElementsByTagName("path").item(0)).getAttribute("d");
+
+        boolean[][] drawn = new boolean[width][width];
+        Matcher run = RUN.matcher(path);
+        int end = 0;
+        while (run.find()) {
+            assertEquals(end, run.start(), "unexpected path data at " + end);
+            end = run.end();
+            int x = Integer.parseInt(run.group(1));
+            int y = Integer.parseInt(run.group(2));
+            int length = Integer.parseInt(run.group(3));
+            assertEquals(length, Integer.parseInt(run.group(4)));
+            for (int i = x; i < x + length; i++) {
+                assertFalse(drawn[y][i], "module " + i + "," + y + " drawn twice");
+                drawn[y][i] = true;
+            }
+        }
+        assertEquals(path.length(), end, "unparsed path data");
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(modules.get(x, y), drawn[y][x], "module " + x + "," + y);
+            }
+        }
+    }
+
+    /**
+     * Encodes as {@link QrCodeService} does; {@code size} 0 gives one pixel per module.
+     */
+    static BitMatrix encode(String payload, int size, ErrorCorrectionLevel ecc) throws Exception {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, ecc);
+        hints.put(EncodeHintType.MARGIN, 4);
+        return new QRCodeWriter().encode(payload, BarcodeFormat.QR_CODE, size, size, hints);
+    }
+}
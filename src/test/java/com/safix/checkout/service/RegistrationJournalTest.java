@@ -0,0 +1,160 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.Registration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationJournalTest {
+
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 500;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parallelAppendsAreAllReadBackAfterReopening() throws Exception {
+        Path file = dir.resolve("registrations.journal");
+        RegistrationJournal journal = open(file);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < PER_THREAD; i++) {
+                    long id = (long) thread * PER_THREAD + i;
+                    // Half blocking, half queued, so both paths share group commits
+                    if (i % 2 == 0) {
+                        journal.append(registration(id));
+                    } else {
+                        journal.appendAsync(registration(id)).get();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        journal.close();
+
+        RegistrationJournal reopened = open(file);
+        try {
+            assertIds(reopened.readAll(), THREADS * PER_THREAD);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void tornTailIsDiscardedWithoutLosingCompleteRecords() throws Exception {
+        Path file = dir.resolve("registrations.journal");
+        RegistrationJournal journal = open(file);
+        for (long id = 0; id < 100; id++) {
+            journal.append(registration(id));
+        }
+        journal.close();
+        // A crash in the middle of a write: a length prefix with only part of its record behind it
+        Files.write(file, new byte[]{0, 0, 1, 0, 42, 42, 42}, StandardOpenOption.APPEND);
+
+        RegistrationJournal reopened = open(file);
+        try {
+            assertIds(reopened.readAll(), 100);
+            reopened.append(registration(100));
+            assertIds(reopened.readAll(), 101);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void latestReceiptStatusIsAppliedAfterReopening() throws Exception {
+        Path file = dir.resolve("registrations.journal");
+        RegistrationJournal journal = open(file);
+        for (long id = 0; id < 1000; id++) {
+            journal.append(registration(id));
+            journal.appendReceiptStatus(id, id % 3 == 0 ? ReceiptPipeline.FAILED : ReceiptPipeline.SENT);
+        }
+        journal.appendReceiptStatus(3, ReceiptPipeline.SENT);
+        journal.close();
+
+        RegistrationJournal reopened = open(file);
+        try {
+            for (Registration reg : reopened.readAll()) {
+                long id = reg.getId();
+                String expected = id % 3 == 0 && id != 3 ? ReceiptPipeline.FAILED : ReceiptPipeline.SENT;
+                assertEquals(expected, reg.getReceiptSent(), "receipt status of " + id);
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void importedRowsAreTrackedByPositionEvenWhenIdsRepeat() throws Exception {
+        Path file = dir.resolve("registrations.journal");
+        RegistrationJournal journal = open(file);
+        // Two legacy rows written in the same millisecond, and a registration that shares nothing with them
+        journal.appendImported(registration(1700000000000L), "registrations.xlsx", 1).get();
+        journal.appendImported(registration(1700000000000L), "registrations.xlsx", 2).get();
+        journal.append(registration(7));
+        journal.close();
+
+        RegistrationJournal reopened = open(file);
+        try {
+            assertEquals(Set.of(1, 2), reopened.importedRows("registrations.xlsx"));
+            assertEquals(Set.of(), reopened.importedRows("other.xlsx"));
+            assertEquals(3, reopened.readAll().size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static RegistrationJournal open(Path file) throws Exception {
+        RegistrationJournal journal = new RegistrationJournal();
+        ReflectionTestUtils.setField(journal, "journalPath", file.toString());
+        journal.open();
+        return journal;
+    }
+
+    private static Registration registration(long id) {
+        Registration reg = new Registration();
+        reg.setId(id);
+        reg.setName("Student " + id);
+        reg.setWhatsapp("98765" + id);
+        reg.setEmail("student" + id + "@example.com");
+        reg.setSelectedCourse("Elite Course");
+        reg.setRegisteredAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        reg.setReceiptSent(ReceiptPipeline.PENDING);
+        return reg;
+    }
+
+    private static void assertIds(List<Registration> registrations, int expected) {
+        Set<Long> ids = new HashSet<>();
+        for (Registration reg : registrations) {
+            assertTrue(ids.add(reg.getId()), "duplicate id " + reg.getId());
+            assertEquals("Student " + reg.getId(), reg.getName());
+        }
+        assertEquals(expected, ids.size());
+        for (long id = 0; id < expected; id++) {
+            assertTrue(ids.contains(id), "lost id " + id);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.safix.checkout.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of {@link SearchIndex} as the catalog grows. The catalog is synthetic: course names and
+ * syllabus texts are drawn from a vocabulary of made-up words with a Zipf-like frequency, so there are a few
+ * very common terms, a long tail of rare ones and realistic prefix ranges. Runs with the GC profiler; start it
+ * with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.safix.checkout.service.SearchIndexBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchIndexBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ne", "ru", "sa", "to", "vi", "de", "fa", "gu", "ho", "ji", "pe", "qua", "ze",
+            "bar", "cor", "dun", "tel"
+    };
+    private static final int WORDS_PER_SYLLABUS = 120;
+    private static final int COURSES_PER_SECTOR = 500;
+
+    @Param({"1000", "10000", "100000"})
+    public int documents;
+
+    private SearchIndex index;
+    private String commonQuery;
+    private String rareQuery;
+    private String mixedQuery;
+    private String typeahead;
+
+    @Setup
+    public void build() {
+        Vocabulary vocabulary = new Vocabulary(SYLLABLES);
+        index = SearchIndex.build(syntheticCatalog(documents, vocabulary, new Random(42)));
+        commonQuery = vocabulary.word(0) + " " + vocabulary.word(3);
+        // A few occurrences per thousand courses
+        rareQuery = vocabulary.word(vocabulary.size() / 4);
+        mixedQuery = vocabulary.word(1) + " " + vocabulary.word(vocabulary.size() / 2);
+        typeahead = vocabulary.word(2).substring(0, 3);
+    }
+
+    @Benchmark
+    public Object searchCommonTerms() {
+        return index.search(commonQuery, 10);
+    }
+
+    @Benchmark
+    public Object searchRareTerm() {
+        return index.search(rareQuery, 10);
+    }
+
+    @Benchmark
+    public Object searchCommonAndRare() {
+        return index.search(mixedQuery, 10);
+    }
+
+    @Benchmark
+    public Object suggestPrefix() {
+        return index.suggest(typeahead, 8);
+    }
+
+    /**
+     * {@code courses} courses in sectors of {@value #COURSES_PER_SECTOR}, each with a fee and a syllabus section.
+     */
+    static SyllabusCatalog syntheticCatalog(int courses, Vocabulary vocabulary, Random random) {
+        Map<Integer, String> sectorNames = new LinkedHashMap<>();
+        Map<Integer, List<String>> sectorCourses = new LinkedHashMap<>();
+        Map<String, Integer> courseToSector = new HashMap<>();
+        Map<String, String> fees = new HashMap<>();
+        Map<Integer, Map<String, Integer>> sections = new HashMap<>();
+        TextStore.Heap texts = new TextStore.Heap();
+
+        StringBuilder syllabus = new StringBuilder();
+        for (int i = 0; i < courses; i++) {
+            int sector = i / COURSES_PER_SECTOR + 1;
+            sectorNames.computeIfAbsent(sector, s -> "Sector " + s + " " + vocabulary.sample(random));
+            String name = vocabulary.sample(random) + " " + vocabulary.sample(random) + " " + vocabulary.sample(random)
+                    + " " + i;
+            String normalized = SyllabusCatalog.normalize(name);
+            sectorCourses.computeIfAbsent(sector, s -> new ArrayList<>()).add(name);
+            courseToSector.put(normalized, sector);
+            fees.put(normalized, String.valueOf(3000 + random.nextInt(10) * 1000 - 1));
+
+            syllabus.setLength(0);
+            for (int w = 0; w < WORDS_PER_SYLLABUS; w++) {
+                syllabus.append(vocabulary.sample(random)).append(w % 12 == 11 ? ".\n" : " ");
+            }
+            sections.computeIfAbsent(sector, s -> new HashMap<>()).put(normalized, texts.add(syllabus.toString()));
+        }
+
+        CatalogData data = new CatalogData(CatalogData.SOURCE_TEXT, sectorNames, sectorCourses, courseToSector, fees,
+                Map.of(), sections, Map.of(), texts);
+        return new SyllabusCatalog(1, Instant.now(), 0, data);
+    }
+
+    /**
+     * Every one- to three-syllable word, sampled with probability proportional to 1 / rank.
+     */
+    static final class Vocabulary {
+        private final List<String> words = new ArrayList<>();
+        private final double[] cumulative;
+
+        Vocabulary(String[] syllables) {
+            for (String a : syllables) {
+                words.add(a);
+                for (String b : syllables) {
+                    words.add(a + b);
+                    for (String c : syllables) {
+                        words.add(a + b + c);
+                    }
+                }
+            }
+            // Shuffled so that word frequency does not follow word length or spelling
+            Collections.shuffle(words, new Random(7));
+            cumulative = new double[words.size()];
+            double total = 0;
+            for (int rank = 0; rank < words.size(); rank++) {
+                total += 1.0 / (rank + 1);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < cumulative.length; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        String word(int rank) {
+            return words.get(rank);
+        }
+
+        int size() {
+            return words.size();
+        }
+
+        String sample(Random random) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            return words.get(Math.min(rank < 0 ? -rank - 1 : rank, words.size() - 1));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SearchIndexBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
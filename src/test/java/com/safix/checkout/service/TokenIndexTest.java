@@ -0,0 +1,170 @@
+package com.safix.checkout.service;
+
+import com.safix.checkout.model.Course;
+import com.safix.checkout.model.Sector;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link TokenIndex#bestMatch} against the linear scan it replaced, which scored every key with the original
+ * {@code similarityScore} and kept the first best one.
+ */
+class TokenIndexTest {
+
+    @Test
+    void matchesTheLinearScanOverTheCatalog() {
+        SyllabusCatalog catalog = PdfServiceTest.newSyllabusService().getCatalog();
+        List<String> keys = new ArrayList<>();
+        for (Course course : catalog.getCourses()) {
+            keys.add(SyllabusCatalog.normalize(course.name()));
+        }
+        for (Sector sector : catalog.getSectors()) {
+            keys.add(SyllabusCatalog.normalize(sector.name()));
+        }
+        assertTrue(keys.size() > 50, "catalog has only " + keys.size() + " names");
+
+        TokenIndex index = new TokenIndex(keys);
+        int matched = 0;
+        for (String query : queries(keys)) {
+            int expected = linearScan(keys, query);
+            assertEquals(expected, index.bestMatch(query), "query \"" + query + "\"");
+            if (expected >= 0) {
+                matched++;
+            }
+        }
+        // Guard against a query set that only exercises the no-match path
+        assertTrue(matched > keys.size(), "only " + matched + " queries matched");
+    }
+
+    @Test
+    void tiesGoToTheEarliestKey() {
+        List<String> keys = List.of("", "web design", "design web", "web development", "web design", "web");
+        TokenIndex index = new TokenIndex(keys);
+
+        // "web design" and "design web" share both tokens; the substring bonus decides
+        assertEquals(1, index.bestMatch("web design"));
+        assertEquals(2, index.bestMatch("design web"));
+        // "web" is exact for the last key, and a substring with one shared token for the others
+        assertEquals(5, index.bestMatch("web"));
+        assertEquals(1, index.bestMatch("design"));
+        assertEquals(3, index.bestMatch("development"));
+        assertEquals(-1, index.bestMatch("cooking"));
+        assertEquals(-1, index.bestMatch(" "));
+        for (String query : List.of("web design", "design web", "web", "design", "development", "cooking", " ",
+                "web dev", "we", "design web development", "web web")) {
+            assertEquals(linearScan(keys, query), index.bestMatch(query), "query \"" + query + "\"");
+        }
+    }
+
+    /**
+     * Every key, plus typos, dropped and extra words, prefixes, single tokens (which tie across many keys) and
+     * random token mixes.
+     */
+    private static List<String> queries(List<String> keys) {
+        List<String> queries = new ArrayList<>();
+        Set<String> vocabulary = new TreeSet<>();
+        for (String key : keys) {
+            queries.add(key);
+            List<String> tokens = new ArrayList<>(TokenIndex.tokens(key));
+            vocabulary.addAll(tokens);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            queries.add(typo(key));
+            queries.add(key + " course");
+            queries.add("advanced " + key);
+            queries.add(key.substring(0, Math.max(1, key.length() / 2)).trim());
+            queries.add(tokens.get(0));
+            queries.add(tokens.get(tokens.size() - 1));
+            if (tokens.size() > 1) {
+                queries.add(String.join(" ", tokens.subList(1, tokens.size())));
+                List<String> reversed = new ArrayList<>(tokens);
+                Collections.reverse(reversed);
+                queries.add(String.join(" ", reversed));
+            }
+        }
+        queries.addAll(vocabulary);
+
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>(vocabulary);
+        for (int i = 0; i < 500; i++) {
+            int length = 1 + random.nextInt(4);
+            StringBuilder query = new StringBuilder();
+            for (int w = 0; w < length; w++) {
+                query.append(w == 0 ? "" : " ").append(words.get(random.nextInt(words.size())));
+            }
+            queries.add(query.toString());
+        }
+        queries.add("");
+        queries.add("zzz qqq");
+        return queries;
+    }
+
+    /**
+     * Swaps two letters in the middle of the key's longest token.
+     */
+    private static String typo(String key) {
+        String longest = "";
+        for (String token : TokenIndex.tokens(key)) {
+            if (token.length() > longest.length()) {
+                longest = token;
+            }
+        }
+        if (longest.length() < 3) {
+            return key + "x";
+        }
+        int i = longest.length() / 2;
+        char[] chars = longest.toCharArray();
+        char swap = chars[i];
+        chars[i] = chars[i - 1];
+        chars[i - 1] = swap;
+        return key.replaceFirst(longest, new String(chars));
+    }
+
+    private static int linearScan(List<String> keys, String query) {
+        int bestIndex = -1;
+        int bestScore = -1;
+        for (int i = 0; i < keys.size(); i++) {
+            int score = similarityScore(query, keys.get(i));
+            if (score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+        }
+        return bestScore >= TokenIndex.MIN_SCORE ? bestIndex : -1;
+    }
+
+    /**
+     * The scoring as it was in SyllabusService before the token index.
+     */
+    private static int similarityScore(String a, String b) {
+        if (a == null || b == null || a.isBlank() || b.isBlank()) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 100;
+        }
+
+        int score = 0;
+        if (a.contains(b) || b.contains(a)) {
+            score += 30;
+        }
+
+        Set<String> tokensA = new HashSet<>(Arrays.asList(a.split("\\s+")));
+        Set<String> tokensB = new HashSet<>(Arrays.asList(b.split("\\s+")));
+        tokensA.remove("");
+        tokensB.remove("");
+
+        int overlap = 0;
+        for (String token : tokensA) {
+            if (tokensB.contains(token)) {
+                overlap++;
+            }
+        }
+        score += overlap * 5;
+        return score;
+    }
+}